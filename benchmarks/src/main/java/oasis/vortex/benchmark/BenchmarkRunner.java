@@ -0,0 +1,172 @@
+package oasis.vortex.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * <h2>BenchmarkRunner</h2>
+ * <p>
+ * Runs the Vortex benchmarks and writes machine-readable results.
+ * Every JMH command line option is supported, so profilers can be enabled with {@code -prof gc}.
+ * </p>
+ * <p>
+ * Unless specified otherwise, the full JMH results are written to {@code jmh-result.json},
+ * and a flat summary is written to {@code jmh-summary.csv}.
+ * When the system property {@code vortex.baseline} points to a summary of a previous run,
+ * the primary scores are compared against it, and the process exits with status 1
+ * if any benchmark regressed by more than {@code vortex.threshold} (10% by default).
+ * </p>
+ */
+public final class BenchmarkRunner {
+    private static final String DEFAULT_RESULT = "jmh-result.json";
+    private static final String SUMMARY = "jmh-summary.csv";
+    private static final String HEADER = "benchmark,params,mode,score,error,unit";
+    private static final double DEFAULT_THRESHOLD = 0.10;
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions cli = new CommandLineOptions(args);
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+
+        if (!cli.getResult().hasValue()) options.result(DEFAULT_RESULT);
+        if (!cli.getResultFormat().hasValue()) options.resultFormat(ResultFormatType.JSON);
+
+        final Collection<RunResult> results = new Runner(options.build()).run();
+        final Map<String, Row> summary = summarize(results);
+        write(summary, Path.of(System.getProperty("vortex.summary", SUMMARY)));
+
+        final String baseline = System.getProperty("vortex.baseline");
+        if (baseline == null) return;
+
+        final double threshold = Double.parseDouble(System.getProperty("vortex.threshold", String.valueOf(DEFAULT_THRESHOLD)));
+        if (!compare(read(Path.of(baseline)), summary, threshold)) System.exit(1);
+    }
+
+    //
+    // Summary
+    //
+
+    @Nonnull
+    private static Map<String, Row> summarize(@Nonnull Collection<RunResult> results) {
+        final Map<String, Row> rows = new LinkedHashMap<>();
+
+        for (RunResult result : results) {
+            final StringJoiner params = new StringJoiner(";");
+            for (String key : result.getParams().getParamsKeys()) params.add(key + "=" + result.getParams().getParam(key));
+
+            final Row row = new Row(
+                    result.getParams().getBenchmark(),
+                    params.toString(),
+                    result.getParams().getMode().shortLabel(),
+                    result.getPrimaryResult().getScore(),
+                    result.getPrimaryResult().getScoreError(),
+                    result.getPrimaryResult().getScoreUnit()
+            );
+
+            rows.put(row.key(), row);
+
+            // Secondary results, such as gc.alloc.rate.norm from the GC profiler
+            result.getSecondaryResults().forEach((label, secondary) -> {
+                final Row extra = new Row(
+                        row.benchmark() + ":" + label,
+                        row.params(),
+                        row.mode(),
+                        secondary.getScore(),
+                        secondary.getScoreError(),
+                        secondary.getScoreUnit()
+                );
+                rows.put(extra.key(), extra);
+            });
+        }
+
+        return rows;
+    }
+
+    private static void write(@Nonnull Map<String, Row> rows, @Nonnull Path path) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        for (Row row : rows.values()) lines.add(row.toCsv());
+
+        Files.write(path, lines, StandardCharsets.UTF_8);
+    }
+
+    @Nonnull
+    private static Map<String, Row> read(@Nonnull Path path) throws IOException {
+        final Map<String, Row> rows = new LinkedHashMap<>();
+
+        for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.equals(HEADER)) continue;
+
+            final Row row = Row.fromCsv(line);
+            rows.put(row.key(), row);
+        }
+
+        return rows;
+    }
+
+    //
+    // Comparison
+    //
+
+    private static boolean compare(@Nonnull Map<String, Row> baseline, @Nonnull Map<String, Row> current, double threshold) {
+        boolean passed = true;
+
+        for (Row row : current.values()) {
+            if (row.benchmark().contains(":")) continue; // Secondary results are informational
+
+            final Row base = baseline.get(row.key());
+            if (base == null || base.score() == 0) continue;
+
+            // Throughput modes are better when higher, every other mode is better when lower
+            final double change = row.mode().equals("thrpt")
+                    ? (base.score() - row.score()) / base.score()
+                    : (row.score() - base.score()) / base.score();
+
+            if (change > threshold) {
+                passed = false;
+                System.out.printf("REGRESSION %s [%s]: %.3f -> %.3f %s (%+.1f%%)%n",
+                        row.benchmark(), row.params(), base.score(), row.score(), row.unit(), change * 100);
+            }
+        }
+
+        if (passed) System.out.println("No regressions beyond " + threshold * 100 + "% against the baseline.");
+        return passed;
+    }
+
+    private record Row(
+            @Nonnull String benchmark,
+            @Nonnull String params,
+            @Nonnull String mode,
+            double score,
+            double error,
+            @Nonnull String unit
+    ) {
+        @Nonnull
+        private String key() {
+            return benchmark + "|" + params + "|" + mode;
+        }
+
+        @Nonnull
+        private String toCsv() {
+            return String.join(",", benchmark, params, mode, String.valueOf(score), String.valueOf(error), unit);
+        }
+
+        @Nonnull
+        private static Row fromCsv(@Nonnull String line) {
+            final String[] cells = line.split(",", -1);
+            return new Row(cells[0], cells[1], cells[2], Double.parseDouble(cells[3]), Double.parseDouble(cells[4]), cells[5]);
+        }
+    }
+}
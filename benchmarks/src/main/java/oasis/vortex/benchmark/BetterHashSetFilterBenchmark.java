@@ -0,0 +1,44 @@
+package oasis.vortex.benchmark;
+
+import oasis.vortex.util.collection.set.BetterHashSet;
+import oasis.vortex.util.collection.set.BetterSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>BetterHashSetFilterBenchmark</h2>
+ * <p>Measures filtering a {@link BetterHashSet} by predicate and by class.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BetterHashSetFilterBenchmark {
+    @Param({"100", "10000"})
+    public int size;
+
+    private BetterHashSet<Number> set;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        set = new BetterHashSet<>();
+
+        for (int i = 0; i < size; i++) {
+            // Half integers, half doubles
+            set.add(i % 2 == 0 ? Integer.valueOf(i) : Double.valueOf(i));
+        }
+    }
+
+    @Benchmark
+    public BetterSet<Number> filterByPredicate() {
+        return set.filter(n -> n.intValue() % 4 == 0);
+    }
+
+    @Benchmark
+    public BetterSet<Integer> filterByClass() {
+        return set.filter(Integer.class);
+    }
+}
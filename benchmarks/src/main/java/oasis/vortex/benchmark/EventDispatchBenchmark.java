@@ -0,0 +1,82 @@
+package oasis.vortex.benchmark;
+
+import oasis.vortex.event.Event;
+import oasis.vortex.event.PreemptiveEvent;
+import oasis.vortex.event.dummy.DummyEvent;
+import oasis.vortex.event.physics.CollisionEvent;
+import oasis.vortex.listener.Listener;
+import oasis.vortex.task.event.EventTask;
+import org.joda.time.Duration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>EventDispatchBenchmark</h2>
+ * <p>
+ * Measures calling and dispatching a batch of events through {@link EventTask#execute(Duration)}.
+ * Listeners are spread over several event types, so only a fraction of them receive each event.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDispatchBenchmark {
+    private static final int EVENTS_PER_OPERATION = 1000;
+
+    @Param({"1", "100", "500"})
+    public int listenerCount;
+
+    private EventTask eventTask;
+    private Event[] events;
+    private final Duration delta = new Duration(100);
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        final Class<?>[] types = {DummyEvent.class, CollisionEvent.class, PreemptiveEvent.class, Event.class};
+
+        eventTask = new EventTask();
+        for (int i = 0; i < listenerCount; i++) {
+            eventTask.registerListener(new ConsumingListener<>(types[i % types.length], blackhole));
+        }
+
+        events = new Event[EVENTS_PER_OPERATION];
+        for (int i = 0; i < events.length; i++) events[i] = new DummyEvent();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_OPERATION)
+    public void callAndDispatch() {
+        for (Event event : events) eventTask.callEvent(event);
+        eventTask.execute(delta);
+    }
+
+    private static final class ConsumingListener<E extends Event> implements Listener<E> {
+        @SuppressWarnings("unchecked")
+        private ConsumingListener(@Nonnull Class<?> eventClass, @Nonnull Blackhole blackhole) {
+            this.eventClass = (Class<E>) eventClass;
+            this.blackhole = blackhole;
+        }
+
+        @Nonnull
+        private final Class<E> eventClass;
+        @Nonnull
+        private final Blackhole blackhole;
+
+        @Override
+        public void handle(@Nonnull E event) {
+            blackhole.consume(event);
+        }
+
+        @Nonnull
+        @Override
+        public Class<E> getEventClass() {
+            return eventClass;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package oasis.vortex.benchmark;
+
+import oasis.vortex.Vortex;
+import oasis.vortex.object.DummyObject;
+import oasis.vortex.tickable.movement.MovementTickable;
+import oasis.vortex.tickable.movement.VectorTickable;
+import oasis.vortex.util.physics.Location;
+import oasis.vortex.util.physics.Vector;
+import oasis.vortex.util.physics.Volume;
+import oasis.vortex.world.DummyWorld;
+import oasis.vortex.world.World;
+import org.joda.time.Duration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>PhysicsTickBenchmark</h2>
+ * <p>Measures the movement and gravity steps of one tick over a world of moving objects.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PhysicsTickBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int objectCount;
+
+    private World world;
+    private final MovementTickable movement = new MovementTickable();
+    private final VectorTickable vector = new VectorTickable();
+    private final Duration delta = new Duration(25);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+
+        world = new DummyWorld();
+        world.setGravity(0); // Keeps objects in the air for the whole trial
+
+        for (int i = 0; i < objectCount; i++) {
+            final DummyObject object = new DummyObject(world);
+            object.setLocation(new Location(world, random.nextDouble() * 1000, 1000, random.nextDouble() * 1000));
+            object.setVector(new Vector(random.nextDouble(), 0, random.nextDouble()));
+            object.setVolume(new Volume(1, 1, 1));
+            world.addObject(object);
+        }
+
+        Vortex.getState().addWorld(world);
+    }
+
+    @Benchmark
+    public void movement() {
+        movement.tick(delta);
+    }
+
+    @Benchmark
+    public void gravity() {
+        vector.tick(delta);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Vortex.getState().removeWorld(world);
+    }
+}
@@ -0,0 +1,87 @@
+package oasis.vortex.benchmark;
+
+import oasis.vortex.util.economy.Asset;
+import oasis.vortex.util.economy.AssetStack;
+import oasis.vortex.util.economy.Portfolio;
+import org.openjdk.jmh.annotations.*;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>PortfolioBenchmark</h2>
+ * <p>Measures adding to, removing from and querying a portfolio holding many distinct assets.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PortfolioBenchmark {
+    @Param({"10", "1000", "10000"})
+    public int portfolioSize;
+
+    private Portfolio portfolio;
+    private AssetStack[] stacks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolio = new Portfolio();
+        stacks = new AssetStack[portfolioSize];
+
+        for (int i = 0; i < portfolioSize; i++) {
+            final Asset asset = new SymbolAsset("ASSET" + i);
+            portfolio.addStack(new AssetStack(asset, 1000));
+            stacks[i] = new AssetStack(asset, 1);
+        }
+    }
+
+    @Benchmark
+    public void addStack() {
+        portfolio.addStack(nextStack());
+    }
+
+    @Benchmark
+    public void removeAndAddStack() {
+        final AssetStack stack = nextStack();
+        portfolio.removeStack(stack);
+        portfolio.addStack(stack);
+    }
+
+    @Benchmark
+    public double getQuantityOf() {
+        return portfolio.getQuantityOf(nextStack().getAsset());
+    }
+
+    @Nonnull
+    private AssetStack nextStack() {
+        final AssetStack stack = stacks[next];
+        next = next + 1 == stacks.length ? 0 : next + 1;
+        return stack;
+    }
+
+    /**
+     * An asset identified only by its symbol.
+     *
+     * @param symbol Unique symbol
+     */
+    public record SymbolAsset(@Nonnull String symbol) implements Asset {
+        @Nonnull
+        @Override
+        public String getSymbol() {
+            return symbol;
+        }
+
+        @Override
+        public boolean isStackableWith(@Nonnull Asset other) {
+            return symbol.equals(other.getSymbol());
+        }
+
+        @Override
+        public int getScale() {
+            return 2;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package oasis.vortex.benchmark;
+
+import oasis.vortex.Vortex;
+import oasis.vortex.object.DummyObject;
+import oasis.vortex.object.ImmovableObject;
+import oasis.vortex.util.physics.Location;
+import oasis.vortex.util.physics.Volume;
+import oasis.vortex.util.string.Text;
+import oasis.vortex.world.RealisticWorld;
+import org.joda.time.Duration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h2>RealisticWorldTickBenchmark</h2>
+ * <p>
+ * Measures {@link RealisticWorld#tick(Duration)}, which runs the broad phase and
+ * the overlap test of every candidate pair.
+ * Objects are scattered randomly, so a fraction of them overlap each other and all of them overlap the ground.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RealisticWorldTickBenchmark {
+    @Param({"100", "1000", "5000"})
+    public int objectCount;
+
+    private RealisticWorld world;
+    private final Duration delta = new Duration(25);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random(42);
+        final double extent = Math.cbrt(objectCount) * 4;
+
+        world = new RealisticWorld(UUID.randomUUID(), new Text("Benchmark"));
+        world.addObject(ImmovableObject.ground(world, 0));
+
+        for (int i = 0; i < objectCount; i++) {
+            final DummyObject object = new DummyObject(world);
+            object.setLocation(new Location(
+                    world,
+                    random.nextDouble() * extent,
+                    random.nextDouble() * extent,
+                    random.nextDouble() * extent
+            ));
+            object.setVolume(new Volume(1, 1, 1));
+            world.addObject(object);
+        }
+
+        // Initial contacts call their collision events once
+        world.tick(delta);
+        Vortex.getEventTask().execute(delta);
+    }
+
+    @Benchmark
+    public void tick() {
+        world.tick(delta);
+    }
+
+    @TearDown(Level.Iteration)
+    public void drainEvents() {
+        Vortex.getEventTask().execute(delta);
+    }
+}
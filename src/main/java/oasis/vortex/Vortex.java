@@ -6,6 +6,7 @@ import oasis.vortex.listener.physics.CollisionListener;
 import oasis.vortex.object.DummyObject;
 import oasis.vortex.object.ImmovableObject;
 import oasis.vortex.object.Object;
+import oasis.vortex.profiler.TickProfiler;
 import oasis.vortex.scheduler.event.EventScheduler;
 import oasis.vortex.scheduler.tick.TickScheduler;
 import oasis.vortex.state.State;
@@ -14,6 +15,7 @@ import oasis.vortex.task.event.EventTask;
 import oasis.vortex.task.tick.TickTask;
 import oasis.vortex.tickable.movement.MovementTickable;
 import oasis.vortex.tickable.movement.VectorTickable;
+import oasis.vortex.util.economy.SettlementEngine;
 import oasis.vortex.util.physics.Mass;
 import oasis.vortex.util.physics.Volume;
 import oasis.vortex.util.string.Text;
@@ -21,6 +23,7 @@ import oasis.vortex.world.RealisticWorld;
 import oasis.vortex.world.World;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.text.NumberFormat;
 import java.util.UUID;
 
@@ -63,6 +66,28 @@ public final class Vortex {
         return eventTask;
     }
 
+    /**
+     * Gets the settlement engine of Vortex.
+     * Every transfer between portfolios which can happen concurrently should be settled through this engine.
+     *
+     * @return {@link SettlementEngine}
+     */
+    @Nonnull
+    public static SettlementEngine getSettlementEngine() {
+        return settlementEngine;
+    }
+
+    /**
+     * Gets the profiler of Vortex.
+     * The profiler is only created when Vortex is started with {@code -Dvortex.profiler=true}.
+     *
+     * @return {@link TickProfiler}, or {@code null} if profiling is disabled
+     */
+    @Nullable
+    public static TickProfiler getProfiler() {
+        return profiler;
+    }
+
     //
     // Main
     //
@@ -78,13 +103,21 @@ public final class Vortex {
         Mass test = new Mass(1, Mass.Unit.TON).addValue(100, Mass.Unit.KILOGRAM);
         System.out.println(NumberFormat.getInstance().format(test.value()));
 
+        // Enable profiling
+        if (Boolean.getBoolean("vortex.profiler")) enableProfiler();
+
         // Register tasks
+        if (Boolean.getBoolean("vortex.drainEventsOnTick")) {
+            // Events are dispatched at the end of each tick instead of on the event scheduler
+            tickTask.setEventTask(eventTask);
+        } else {
+            eventScheduler.registerTask(eventTask);
+            eventScheduler.start();
+        }
+
         tickScheduler.registerTask(tickTask);
         tickScheduler.start();
 
-        eventScheduler.registerTask(eventTask);
-        eventScheduler.start();
-
         // Register tickables
         tickTask.registerTickable(new MovementTickable());
         tickTask.registerTickable(new VectorTickable());
@@ -116,6 +149,26 @@ public final class Vortex {
 
     }
 
+    /**
+     * Creates the profiler, attaches it to the state and tasks, and exposes it through JMX.
+     */
+    private static void enableProfiler() {
+        final TickProfiler p = new TickProfiler();
+
+        p.registerGauge("eventTask.queueDepth", eventTask::getQueueDepth);
+        p.registerGauge("eventTask.droppedEvents", eventTask::getDroppedEventCount);
+        p.registerGauge("eventTask.rejectedEvents", eventTask::getRejectedEventCount);
+        p.registerGauge("tickScheduler.overrunTicks", tickScheduler::getOverrunTicks);
+        p.registerGauge("eventScheduler.overrunTicks", eventScheduler::getOverrunTicks);
+
+        if (state instanceof VortexState vs) vs.setProfiler(p);
+        tickTask.setProfiler(p);
+        eventTask.setProfiler(p);
+
+        p.registerMBean();
+        profiler = p;
+    }
+
     //
     // Static fields
     //
@@ -136,4 +189,12 @@ public final class Vortex {
     @Nonnull
     private static final EventScheduler eventScheduler = new EventScheduler();
 
+    // Economy
+    @Nonnull
+    private static final SettlementEngine settlementEngine = new SettlementEngine();
+
+    // Profiling
+    @Nullable
+    private static volatile TickProfiler profiler = null;
+
 }
\ No newline at end of file
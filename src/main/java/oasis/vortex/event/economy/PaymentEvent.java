@@ -84,7 +84,7 @@ public class PaymentEvent extends PreemptiveEvent.AbstractPreemptiveEvent {
     private final AssetStack payment;
 
     private PaymentEvent(@Nonnull Builder builder) {
-        super(builder().successor);
+        super(builder.successor);
 
         this.sender = builder.sender;
         this.recipient = builder.recipient;
@@ -0,0 +1,984 @@
+package oasis.vortex.ledger;
+
+import oasis.vortex.event.economy.PaymentEvent;
+import oasis.vortex.object.actor.EconomicActor;
+import oasis.vortex.state.State;
+import oasis.vortex.util.economy.Asset;
+import oasis.vortex.util.economy.AssetStack;
+import oasis.vortex.util.economy.Portfolio;
+import org.joda.time.Duration;
+import sun.misc.Unsafe;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * <h2>PaymentLedger</h2>
+ * <p>
+ * An append-only, write-ahead ledger of settled payments, used to restore portfolios after a crash.
+ * </p>
+ * <p>
+ * Records are appended to memory-mapped segment files. An append copies the record into the mapping,
+ * so it takes microseconds, and survives a crash of the process as soon as it returns.
+ * Surviving a crash of the machine requires the mapping to be forced to disk. A background thread does this
+ * at the flush interval, and in between whenever {@link PaymentLedger#sync()} is called, committing every record
+ * appended since the previous force as one group. Every record is framed with its length and a CRC32C checksum,
+ * so a torn tail is detected and discarded on recovery.
+ * </p>
+ * <p>
+ * Once a segment is full, a new one is started. When enough full segments have accumulated,
+ * they are compacted into a snapshot of the net position of each actor in each asset, and deleted.
+ * </p>
+ * <p>
+ * On startup, {@link PaymentLedger#replay(Function, Function)} applies the snapshot and the remaining records
+ * onto the portfolios of the actors, as they were created by the game. Replay must be done before appending.
+ * </p>
+ */
+public final class PaymentLedger implements Closeable {
+    /**
+     * The default size of a segment file in bytes.
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 64L << 20;
+
+    /**
+     * The default number of full segments which triggers a compaction.
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 4;
+
+    /**
+     * The default maximum time between two forces of the ledger to disk.
+     */
+    @Nonnull
+    public static final Duration DEFAULT_FLUSH_INTERVAL = new Duration(10);
+
+    /**
+     * Opens a ledger with the default segment size and flush interval, creating it if it does not exist.
+     *
+     * @param directory Directory of the ledger
+     * @return Opened ledger
+     * @throws IOException When the ledger could not be opened
+     */
+    @Nonnull
+    public static PaymentLedger open(@Nonnull Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     * Opens a ledger, creating it if it does not exist.
+     * The tail of the last segment is validated, and anything after the last intact record is discarded.
+     *
+     * @param directory     Directory of the ledger
+     * @param segmentSize   Size of a segment file in bytes
+     * @param flushInterval Maximum time between two forces to disk
+     * @return Opened ledger
+     * @throws IllegalArgumentException When the segment size or the flush interval is not positive
+     * @throws IOException              When the ledger could not be opened
+     */
+    @Nonnull
+    public static PaymentLedger open(
+            @Nonnull Path directory,
+            @Positive long segmentSize,
+            @Nonnull Duration flushInterval
+    ) throws IllegalArgumentException, IOException {
+        if (segmentSize <= SEGMENT_HEADER_SIZE + MAX_FRAME_SIZE || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException();
+        }
+
+        if (flushInterval.getMillis() <= 0) throw new IllegalArgumentException();
+
+        Files.createDirectories(directory);
+        return new PaymentLedger(directory, segmentSize, flushInterval);
+    }
+
+    private PaymentLedger(
+            @Nonnull Path directory,
+            long segmentSize,
+            @Nonnull Duration flushInterval
+    ) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval.getMillis());
+        this.segments = new ArrayList<>();
+        this.scratch = ByteBuffer.allocate(MAX_FRAME_SIZE);
+        this.crc = new CRC32C();
+        this.symbols = new ConcurrentHashMap<>();
+
+        // Recover
+        this.snapshotSequence = readSnapshotSequence();
+        long last = snapshotSequence;
+
+        for (Path path : list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            final Segment segment = Segment.map(path, segmentSize);
+
+            if (segment.buffer.getInt(0) == 0) {
+                // Created right before a crash, and never written to
+                segment.unmap();
+                Files.delete(path);
+                continue;
+            }
+
+            final long[] end = {segment.base - 1};
+
+            segment.buffer.position(scan(segment.buffer, (seq, payload) -> end[0] = seq));
+            segments.add(segment);
+            last = Math.max(last, end[0]);
+        }
+
+        if (segments.isEmpty()) {
+            segments.add(createSegment(last + 1));
+        } else {
+            // Records after a torn one must never be mistaken for new records once appends resume
+            final MappedByteBuffer tail = segments.get(segments.size() - 1).buffer;
+            if (clear(tail, tail.position())) tail.force();
+        }
+
+        this.lastSequence = last;
+        this.durableSequence = last;
+
+        this.flusher = Thread.ofPlatform().daemon().name("vortex-ledger-flusher").start(this::flushLoop);
+    }
+
+    //
+    // Appending
+    //
+
+    /**
+     * Appends a settled payment.
+     *
+     * @param event Payment to append
+     * @return Sequence number of the record
+     * @throws IllegalStateException When this ledger has been closed, or could not be forced to disk
+     * @throws UncheckedIOException  When a new segment could not be created
+     */
+    public long append(@Nonnull PaymentEvent event) throws IllegalStateException, UncheckedIOException {
+        return appendTransfer(event.getSender().getUniqueId(), event.getRecipient().getUniqueId(), event.getPayment());
+    }
+
+    /**
+     * Appends a transfer of assets from one actor to another.
+     *
+     * @param sender    Unique identifier of the sender
+     * @param recipient Unique identifier of the recipient
+     * @param payment   Transferred assets
+     * @return Sequence number of the record
+     * @throws IllegalStateException When this ledger has been closed, or could not be forced to disk
+     * @throws UncheckedIOException  When a new segment could not be created
+     */
+    public synchronized long appendTransfer(
+            @Nonnull UUID sender,
+            @Nonnull UUID recipient,
+            @Nonnull AssetStack payment
+    ) throws IllegalStateException, UncheckedIOException {
+        final long sequence = begin(TRANSFER);
+
+        putUniqueId(sender);
+        putUniqueId(recipient);
+        putStack(payment);
+
+        return commit(sequence);
+    }
+
+    /**
+     * Appends an adjustment of the assets of one actor, such as assets created or destroyed by the game.
+     *
+     * @param actor Unique identifier of the actor
+     * @param delta Assets added to the actor, or removed when negative
+     * @return Sequence number of the record
+     * @throws IllegalStateException When this ledger has been closed, or could not be forced to disk
+     * @throws UncheckedIOException  When a new segment could not be created
+     */
+    public synchronized long appendAdjustment(
+            @Nonnull UUID actor,
+            @Nonnull AssetStack delta
+    ) throws IllegalStateException, UncheckedIOException {
+        final long sequence = begin(ADJUSTMENT);
+
+        putUniqueId(actor);
+        putStack(delta);
+
+        return commit(sequence);
+    }
+
+    private long begin(byte type) throws IllegalStateException {
+        if (closed) throw new IllegalStateException("Ledger is closed");
+        if (failure != null) throw new IllegalStateException("Ledger could not be forced to disk", failure);
+
+        final long sequence = lastSequence + 1;
+
+        scratch.clear();
+        scratch.put(type);
+        scratch.putLong(sequence);
+        return sequence;
+    }
+
+    private void putUniqueId(@Nonnull UUID uniqueId) {
+        scratch.putLong(uniqueId.getMostSignificantBits());
+        scratch.putLong(uniqueId.getLeastSignificantBits());
+    }
+
+    private void putStack(@Nonnull AssetStack stack) throws IllegalArgumentException {
+        final byte[] symbol = symbols.computeIfAbsent(stack.getAsset().getSymbol(), PaymentLedger::encode);
+
+        scratch.putLong(stack.getUnits());
+        scratch.putShort((short) symbol.length);
+        scratch.put(symbol);
+    }
+
+    private long commit(long sequence) throws UncheckedIOException {
+        final int length = scratch.position();
+        final int frame = FRAME_HEADER_SIZE + length;
+
+        Segment segment = segments.get(segments.size() - 1);
+
+        if (segment.buffer.remaining() < frame + FRAME_HEADER_SIZE) {
+            try {
+                segment = roll(sequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        crc.reset();
+        crc.update(scratch.array(), 0, length);
+
+        final MappedByteBuffer buffer = segment.buffer;
+        final int position = buffer.position();
+
+        buffer.position(position + FRAME_HEADER_SIZE);
+        buffer.put(scratch.array(), 0, length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+
+        // The length is written last, so a record is only visible to recovery once it is complete
+        buffer.putInt(position, length);
+
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    @Nonnull
+    private Segment roll(long base) throws IOException {
+        final Segment full = segments.get(segments.size() - 1);
+        full.buffer.force();
+
+        final Segment next = createSegment(base);
+        segments.add(next);
+        return next;
+    }
+
+    @Nonnull
+    private Segment createSegment(long base) throws IOException {
+        final Path path = directory.resolve(name(SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+        final MappedByteBuffer buffer = Segment.map(path, segmentSize).buffer();
+
+        buffer.putInt(0, SEGMENT_MAGIC);
+        buffer.putLong(4, base);
+        buffer.position(SEGMENT_HEADER_SIZE);
+        return new Segment(path, base, buffer);
+    }
+
+    @Nonnull
+    private static byte[] encode(@Nonnull String symbol) throws IllegalArgumentException {
+        final byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_SYMBOL_LENGTH) throw new IllegalArgumentException("Symbol is too long");
+        return bytes;
+    }
+
+    //
+    // Durability
+    //
+
+    /**
+     * Waits until every record appended so far has been forced to disk.
+     * Concurrent callers are committed together by a single force.
+     *
+     * @throws InterruptedException  When the thread is interrupted while waiting
+     * @throws IllegalStateException When this ledger is closed, or fails, before the records have been forced
+     */
+    public void sync() throws InterruptedException, IllegalStateException {
+        awaitDurable(getLastSequence());
+    }
+
+    /**
+     * Waits until the record of given sequence number, and every record before it, has been forced to disk.
+     *
+     * @param sequence Sequence number to wait for
+     * @throws InterruptedException  When the thread is interrupted while waiting
+     * @throws IllegalStateException When this ledger is closed, or fails, before the record has been forced
+     */
+    public void awaitDurable(long sequence) throws InterruptedException, IllegalStateException {
+        if (durableSequence >= sequence) return;
+
+        LockSupport.unpark(flusher);
+
+        synchronized (durable) {
+            while (durableSequence < sequence) {
+                if (flusherStopped) {
+                    final Throwable failure = this.failure;
+                    if (failure != null) throw new IllegalStateException("Ledger could not be forced to disk", failure);
+                    throw new IllegalStateException("Ledger is closed");
+                }
+
+                durable.wait();
+            }
+        }
+    }
+
+    /**
+     * Gets the sequence number of the last appended record.
+     *
+     * @return Last sequence number
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Gets the sequence number of the last record forced to disk.
+     *
+     * @return Last durable sequence number
+     */
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    /**
+     * Forces the ledger at the flush interval until it is closed.
+     * A failed force is not retried, since the state of the pages on disk is unknown afterwards.
+     * The failure is recorded instead, which fails every later append and every waiter.
+     */
+    private void flushLoop() {
+        try {
+            while (!closed) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+                flush();
+
+                try {
+                    if (getFullSegmentCount() >= compactionThreshold) compact();
+                } catch (IOException | RuntimeException e) {
+                    report(e);
+                }
+            }
+
+            flush();
+        } catch (Throwable t) {
+            failure = t;
+            report(t);
+        } finally {
+            synchronized (durable) {
+                flusherStopped = true;
+                durable.notifyAll();
+            }
+        }
+    }
+
+    private static void report(@Nonnull Throwable t) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+    }
+
+    private void flush() {
+        // Exclusive, so durableSequence never moves backwards and the buffer is not unmapped while it is forced
+        synchronized (flushing) {
+            final long target;
+            final MappedByteBuffer buffer;
+
+            synchronized (this) {
+                target = lastSequence;
+                buffer = segments.get(segments.size() - 1).buffer;
+            }
+
+            // Full segments are forced when they are rolled over
+            if (target > durableSequence) {
+                buffer.force();
+                durableSequence = target;
+            }
+        }
+
+        synchronized (durable) {
+            durable.notifyAll();
+        }
+    }
+
+    //
+    // Recovery
+    //
+
+    /**
+     * Applies the snapshot and every record of this ledger onto the portfolios of the actors.
+     * Actors are expected to hold the portfolios they were created with, so the ledger is applied as deltas.
+     * Records of actors or assets which cannot be resolved are skipped.
+     *
+     * @param portfolios Resolves the portfolio of an actor by unique identifier, or {@code null} if not found
+     * @param assets     Resolves an asset by symbol, or {@code null} if not found
+     * @return Number of applied entries
+     * @throws IOException When the snapshot or a segment is corrupt
+     */
+    @Nonnegative
+    public long replay(
+            @Nonnull Function<UUID, Portfolio> portfolios,
+            @Nonnull Function<String, Asset> assets
+    ) throws IOException {
+        final Replay replay = new Replay(portfolios, assets);
+
+        // Compaction unmaps the segments it has compacted, so it must not run while they are scanned
+        synchronized (compaction) {
+            final Map<Position, Long> snapshot;
+            final long from;
+            final List<Segment> targets;
+
+            synchronized (this) {
+                snapshot = readSnapshot();
+                from = snapshotSequence;
+                targets = new ArrayList<>(segments);
+            }
+
+            snapshot.forEach((position, units) -> replay.apply(position.actor(), position.symbol(), units));
+
+            final long[] last = {from};
+
+            for (Segment segment : targets) {
+                scan(segment.buffer, (sequence, payload) -> {
+                    // Sequence numbers only ever increase, so anything else is a stale record
+                    if (sequence <= last[0]) return;
+
+                    replay.apply(payload);
+                    last[0] = sequence;
+                });
+            }
+        }
+
+        return replay.applied;
+    }
+
+    /**
+     * Applies the snapshot and every record of this ledger onto the portfolios of the economic actors of a state.
+     *
+     * @param state  State to find actors in
+     * @param assets Resolves an asset by symbol, or {@code null} if not found
+     * @return Number of applied entries
+     * @throws IOException When the snapshot or a segment is corrupt
+     */
+    @Nonnegative
+    public long replay(@Nonnull State state, @Nonnull Function<String, Asset> assets) throws IOException {
+        return replay(id -> state.queryObject(EconomicActor.class, id).object() instanceof EconomicActor actor
+                ? actor.getPortfolio() : null, assets);
+    }
+
+    /**
+     * Applies decoded records onto portfolios.
+     */
+    private static final class Replay {
+        private Replay(@Nonnull Function<UUID, Portfolio> portfolios, @Nonnull Function<String, Asset> assets) {
+            this.portfolios = portfolios;
+            this.assets = assets;
+        }
+
+        private final Function<UUID, Portfolio> portfolios;
+        private final Function<String, Asset> assets;
+        private long applied = 0;
+
+        private void apply(@Nonnull ByteBuffer payload) {
+            final byte type = payload.get(0);
+            payload.position(RECORD_HEADER_SIZE);
+
+            if (type == TRANSFER) {
+                final UUID sender = getUniqueId(payload);
+                final UUID recipient = getUniqueId(payload);
+                final long units = payload.getLong();
+                final String symbol = getSymbol(payload);
+
+                apply(sender, symbol, Math.negateExact(units));
+                apply(recipient, symbol, units);
+            } else if (type == ADJUSTMENT) {
+                final UUID actor = getUniqueId(payload);
+                final long units = payload.getLong();
+
+                apply(actor, getSymbol(payload), units);
+            }
+        }
+
+        private void apply(@Nonnull UUID actor, @Nonnull String symbol, long units) {
+            final Portfolio portfolio = portfolios.apply(actor);
+            final Asset asset = assets.apply(symbol);
+            if (portfolio == null || asset == null) return;
+
+            portfolio.addStack(AssetStack.ofUnits(asset, units));
+            applied++;
+        }
+    }
+
+    //
+    // Compaction
+    //
+
+    /**
+     * Compacts every full segment into the snapshot, then unmaps and deletes the segments.
+     * The snapshot holds the net position of each actor in each asset, up to the last compacted record.
+     * This is called automatically once {@link PaymentLedger#getCompactionThreshold()} full segments have accumulated.
+     *
+     * @throws IOException When the snapshot could not be written
+     */
+    public void compact() throws IOException {
+        synchronized (compaction) {
+            final List<Segment> full;
+
+            synchronized (this) {
+                if (segments.size() <= 1) return;
+                full = new ArrayList<>(segments.subList(0, segments.size() - 1));
+            }
+
+            final Map<Position, Long> positions = readSnapshot();
+            final long from = snapshotSequence;
+            final long[] until = {from};
+
+            for (Segment segment : full) {
+                scan(segment.buffer, (sequence, payload) -> {
+                    if (sequence <= from) return;
+
+                    fold(positions, payload);
+                    until[0] = sequence;
+                });
+            }
+
+            final Path previous = snapshotPath(from);
+            if (until[0] != from) writeSnapshot(until[0], positions);
+
+            synchronized (this) {
+                snapshotSequence = until[0];
+                segments.removeAll(full);
+            }
+
+            // Unmapped right away, instead of holding on to the memory until the buffers are collected
+            synchronized (flushing) {
+                for (Segment segment : full) segment.unmap();
+            }
+
+            if (from > 0 && until[0] != from) Files.deleteIfExists(previous);
+            for (Segment segment : full) Files.deleteIfExists(segment.path);
+        }
+    }
+
+    private static void fold(@Nonnull Map<Position, Long> positions, @Nonnull ByteBuffer payload) {
+        final byte type = payload.get(0);
+        payload.position(RECORD_HEADER_SIZE);
+
+        if (type == TRANSFER) {
+            final UUID sender = getUniqueId(payload);
+            final UUID recipient = getUniqueId(payload);
+            final long units = payload.getLong();
+            final String symbol = getSymbol(payload);
+
+            positions.merge(new Position(sender, symbol), Math.negateExact(units), Math::addExact);
+            positions.merge(new Position(recipient, symbol), units, Math::addExact);
+        } else if (type == ADJUSTMENT) {
+            final UUID actor = getUniqueId(payload);
+            final long units = payload.getLong();
+
+            positions.merge(new Position(actor, getSymbol(payload)), units, Math::addExact);
+        }
+    }
+
+    /**
+     * Gets the number of full segments waiting to be compacted.
+     *
+     * @return Number of full segments
+     */
+    @Nonnegative
+    public synchronized int getFullSegmentCount() {
+        return segments.size() - 1;
+    }
+
+    /**
+     * Gets the number of full segments which triggers a compaction.
+     *
+     * @return Compaction threshold
+     */
+    @Positive
+    public int getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    /**
+     * Sets the number of full segments which triggers a compaction.
+     *
+     * @param threshold Compaction threshold
+     * @throws IllegalArgumentException When the threshold is not positive
+     */
+    public void setCompactionThreshold(@Positive int threshold) throws IllegalArgumentException {
+        if (threshold <= 0) throw new IllegalArgumentException();
+        this.compactionThreshold = threshold;
+    }
+
+    //
+    // Snapshots
+    //
+
+    /**
+     * The net position of an actor in an asset.
+     *
+     * @param actor  Unique identifier of the actor
+     * @param symbol Symbol of the asset
+     */
+    private record Position(@Nonnull UUID actor, @Nonnull String symbol) {}
+
+    private long readSnapshotSequence() throws IOException {
+        return list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).stream()
+                .mapToLong(p -> parse(p, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX))
+                .max()
+                .orElse(0);
+    }
+
+    @Nonnull
+    private Map<Position, Long> readSnapshot() throws IOException {
+        final Map<Position, Long> positions = new HashMap<>();
+        if (snapshotSequence == 0) return positions;
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotPath(snapshotSequence)));
+        final int end = buffer.limit() - 4;
+        final CRC32C checksum = new CRC32C();
+
+        if (end < SNAPSHOT_HEADER_SIZE) throw new IOException("Corrupt ledger snapshot");
+        checksum.update(buffer.array(), 0, end);
+
+        if (buffer.getInt(0) != SNAPSHOT_MAGIC || buffer.getInt(end) != (int) checksum.getValue()) {
+            throw new IOException("Corrupt ledger snapshot");
+        }
+
+        buffer.position(SNAPSHOT_HEADER_SIZE);
+
+        while (buffer.position() < end) {
+            final UUID actor = getUniqueId(buffer);
+            final long units = buffer.getLong();
+
+            positions.put(new Position(actor, getSymbol(buffer)), units);
+        }
+
+        return positions;
+    }
+
+    private void writeSnapshot(long sequence, @Nonnull Map<Position, Long> positions) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE + positions.size() * MAX_POSITION_SIZE + 4);
+
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putLong(sequence);
+
+        positions.forEach((position, units) -> {
+            if (units == 0) return;
+
+            putUniqueId(buffer, position.actor());
+            buffer.putLong(units);
+
+            final byte[] symbol = encode(position.symbol());
+            buffer.putShort((short) symbol.length);
+            buffer.put(symbol);
+        });
+
+        final CRC32C checksum = new CRC32C();
+        checksum.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) checksum.getValue());
+        buffer.flip();
+
+        // Written to a temporary file first, so a crash never leaves a partial snapshot behind
+        final Path temporary = directory.resolve(SNAPSHOT_PREFIX + "tmp");
+
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+
+        Files.move(temporary, snapshotPath(sequence), StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+    }
+
+    /**
+     * Forces the directory of this ledger to disk, so a renamed file survives a crash.
+     * Platforms which cannot open directories as channels make renames durable on their own.
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on every platform
+        }
+    }
+
+    @Nonnull
+    private Path snapshotPath(long sequence) {
+        return directory.resolve(name(SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX));
+    }
+
+    //
+    // Format
+    //
+
+    /**
+     * Receives the intact records of a segment.
+     */
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(long sequence, @Nonnull ByteBuffer payload);
+    }
+
+    /**
+     * Visits every intact record of a segment, in order.
+     * Records are numbered consecutively from the base of the segment. A record which is torn, corrupt,
+     * or out of sequence marks the end of the segment.
+     *
+     * @param buffer  Mapped segment
+     * @param visitor Visitor to call for each record
+     * @return Offset after the last intact record
+     */
+    private static int scan(@Nonnull MappedByteBuffer buffer, @Nonnull RecordVisitor visitor) throws IOException {
+        if (buffer.getInt(0) != SEGMENT_MAGIC) throw new IOException("Corrupt ledger segment");
+
+        final CRC32C checksum = new CRC32C();
+        final ByteBuffer view = buffer.duplicate();
+        long expected = buffer.getLong(4);
+        int position = SEGMENT_HEADER_SIZE;
+
+        while (position + FRAME_HEADER_SIZE <= view.capacity()) {
+            final int length = view.getInt(position);
+            if (length < RECORD_HEADER_SIZE || length > MAX_FRAME_SIZE) break;
+
+            final int start = position + FRAME_HEADER_SIZE;
+            if (start + length > view.capacity()) break;
+
+            final ByteBuffer payload = view.slice(start, length);
+            checksum.reset();
+            checksum.update(payload.duplicate());
+
+            // A torn or corrupt record marks the end of the segment
+            if (view.getInt(position + 4) != (int) checksum.getValue()) break;
+
+            final long sequence = payload.getLong(1);
+            if (sequence != expected) break;
+
+            visitor.visit(sequence, payload);
+            expected++;
+            position = start + length;
+        }
+
+        return position;
+    }
+
+    /**
+     * Zeroes a segment from given offset to its end.
+     * Pages which are already zero are only read, so a clean tail is not dirtied.
+     *
+     * @param buffer Mapped segment
+     * @param from   Offset to zero from
+     * @return {@code true} if anything has been zeroed
+     */
+    private static boolean clear(@Nonnull MappedByteBuffer buffer, int from) {
+        final int end = buffer.capacity();
+        final int aligned = Math.min((from + 7) & ~7, end);
+        boolean dirty = false;
+
+        for (int i = from; i < aligned; i++) {
+            if (buffer.get(i) == 0) continue;
+            buffer.put(i, (byte) 0);
+            dirty = true;
+        }
+
+        int i = aligned;
+
+        for (; i + 8 <= end; i += 8) {
+            if (buffer.getLong(i) == 0) continue;
+            buffer.putLong(i, 0);
+            dirty = true;
+        }
+
+        for (; i < end; i++) {
+            if (buffer.get(i) == 0) continue;
+            buffer.put(i, (byte) 0);
+            dirty = true;
+        }
+
+        return dirty;
+    }
+
+    @Nonnull
+    private static UUID getUniqueId(@Nonnull ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    private static void putUniqueId(@Nonnull ByteBuffer buffer, @Nonnull UUID uniqueId) {
+        buffer.putLong(uniqueId.getMostSignificantBits());
+        buffer.putLong(uniqueId.getLeastSignificantBits());
+    }
+
+    @Nonnull
+    private static String getSymbol(@Nonnull ByteBuffer buffer) {
+        final byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Nonnull
+    private List<Path> list(@Nonnull String prefix, @Nonnull String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> {
+                        final String name = p.getFileName().toString();
+                        return name.startsWith(prefix) && name.endsWith(suffix) && parse(p, prefix, suffix) >= 0;
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    @Nonnull
+    private static String name(@Nonnull String prefix, long sequence, @Nonnull String suffix) {
+        return String.format("%s%019d%s", prefix, sequence, suffix);
+    }
+
+    private static long parse(@Nonnull Path path, @Nonnull String prefix, @Nonnull String suffix) {
+        final String name = path.getFileName().toString();
+
+        try {
+            return Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A memory-mapped segment file.
+     */
+    private record Segment(@Nonnull Path path, long base, @Nonnull MappedByteBuffer buffer) {
+        @Nonnull
+        private static Segment map(@Nonnull Path path, long size) throws IOException {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                return new Segment(path, buffer.getLong(4), buffer);
+            }
+        }
+
+        /**
+         * Releases the mapping of this segment. The buffer must not be accessed afterwards.
+         */
+        private void unmap() {
+            UNSAFE.invokeCleaner(buffer);
+        }
+    }
+
+    //
+    // Lifecycle
+    //
+
+    /**
+     * Closes this ledger. Every appended record is forced to disk before this returns.
+     *
+     * @throws IOException When the ledger could not be closed, or the records could not be forced to disk
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+
+        LockSupport.unpark(flusher);
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flush();
+        }
+
+        synchronized (durable) {
+            durable.notifyAll();
+        }
+
+        final Throwable failure = this.failure;
+        if (failure != null) throw new IOException("Ledger could not be forced to disk", failure);
+    }
+
+    private static final byte TRANSFER = 1;
+    private static final byte ADJUSTMENT = 2;
+
+    private static final int SEGMENT_MAGIC = 0x564C4731; // VLG1
+    private static final int SNAPSHOT_MAGIC = 0x56534E31; // VSN1
+    private static final int SEGMENT_HEADER_SIZE = 16;
+    private static final int SNAPSHOT_HEADER_SIZE = 12;
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 9;
+    private static final int MAX_SYMBOL_LENGTH = 1024;
+    private static final int MAX_FRAME_SIZE = RECORD_HEADER_SIZE + 32 + 8 + 2 + MAX_SYMBOL_LENGTH;
+    private static final int MAX_POSITION_SIZE = 16 + 8 + 2 + MAX_SYMBOL_LENGTH;
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    @Nonnull
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            final Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Nonnull
+    private final Path directory;
+    private final long segmentSize;
+    private final long flushIntervalNanos;
+    @Nonnull
+    private final List<Segment> segments;
+    @Nonnull
+    private final ByteBuffer scratch;
+    @Nonnull
+    private final CRC32C crc;
+    @Nonnull
+    private final Map<String, byte[]> symbols;
+    @Nonnull
+    private final Thread flusher;
+    @Nonnull
+    private final Object durable = new Object();
+    @Nonnull
+    private final Object compaction = new Object();
+    @Nonnull
+    private final Object flushing = new Object();
+
+    private long lastSequence;
+    private volatile long durableSequence;
+    private volatile long snapshotSequence;
+    private volatile int compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+    private volatile boolean closed = false;
+    private volatile boolean flusherStopped = false;
+    @Nullable
+    private volatile Throwable failure = null;
+}
@@ -24,6 +24,33 @@ public interface Listener<E extends Event> {
     @Nonnull
     Class<E> getEventClass();
 
+    /**
+     * Gets the priority of this listener.
+     * Listeners of lower priority are called first. Listeners which cancel events should use a low priority,
+     * so that the listeners they cut off are not called.
+     *
+     * @return {@link Priority}
+     */
+    @Nonnull
+    default Priority getPriority() {
+        return Priority.NORMAL;
+    }
+
+    /**
+     * Gets whether this listener handles events asynchronously.
+     * <p>
+     * Asynchronous listeners are handed their events on a virtual thread, and do not block event processing.
+     * They are called after every synchronous listener of lower priority, but may still be running
+     * when later listeners and successor events are handled. Asynchronous listeners should therefore
+     * only observe events. Cancelling an event from an asynchronous listener has no defined effect.
+     * </p>
+     *
+     * @return {@code true} if this listener is asynchronous
+     */
+    default boolean isAsync() {
+        return false;
+    }
+
     /**
      * Called from event task.
      * Handles internal listener processing.
@@ -34,4 +61,48 @@ public interface Listener<E extends Event> {
         if (!getEventClass().isInstance(event)) return;
         handle(getEventClass().cast(event));
     }
+
+    /**
+     * <h2>Priority</h2>
+     * <p>
+     * The order in which listeners of the same event are called, from first to last.
+     * Listeners of equal priority are called in the order they were registered.
+     * </p>
+     * <p>
+     * Once a {@link oasis.vortex.event.PreemptiveEvent} has been cancelled,
+     * every remaining listener is skipped except for {@link Priority#MONITOR} listeners.
+     * </p>
+     */
+    enum Priority {
+        /**
+         * Called first.
+         */
+        LOWEST,
+
+        /**
+         * Called after {@link Priority#LOWEST}.
+         */
+        LOW,
+
+        /**
+         * The default priority.
+         */
+        NORMAL,
+
+        /**
+         * Called after {@link Priority#NORMAL}.
+         */
+        HIGH,
+
+        /**
+         * Called last among the listeners which can modify or cancel an event.
+         */
+        HIGHEST,
+
+        /**
+         * Called after every other listener, even if the event has been cancelled.
+         * Monitors observe the outcome of an event, and should not modify it.
+         */
+        MONITOR
+    }
 }
@@ -0,0 +1,23 @@
+package oasis.vortex.listener.economy;
+
+import oasis.vortex.event.economy.PaymentEvent;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <h2>PaymentCallback</h2>
+ * <p>
+ * Notified by a {@link PaymentNettingListener} of the outcome of every payment it has settled.
+ * The callback is called on the thread which ticks the listener.
+ * </p>
+ */
+@FunctionalInterface
+public interface PaymentCallback {
+    /**
+     * Called once a payment has been settled, or has failed.
+     *
+     * @param event   Payment
+     * @param settled {@code true} if the payment was settled, {@code false} if it could not be settled
+     */
+    void onPayment(@Nonnull PaymentEvent event, boolean settled);
+}
@@ -2,28 +2,81 @@ package oasis.vortex.listener.economy;
 
 import oasis.vortex.event.economy.PaymentEvent;
 import oasis.vortex.listener.Listener;
+import oasis.vortex.Vortex;
+import oasis.vortex.ledger.PaymentLedger;
 import oasis.vortex.object.actor.EconomicActor;
-import oasis.vortex.util.economy.AssetStack;
+import oasis.vortex.util.economy.SettlementEngine;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * <h2>PaymentListener</h2>
  * <p>Handles the payment between {@link EconomicActor}s.</p>
+ * <p>Payments the sender cannot afford are cancelled, which prevents their successors from being called.</p>
+ * <p>
+ * Payments are applied through a {@link SettlementEngine}, which checks and transfers atomically,
+ * so payments can safely be settled from other threads at the same time.
+ * </p>
+ * <p>
+ * When a {@link PaymentLedger} is given, every settled payment is written ahead to the ledger,
+ * while the portfolios are still locked and before the payment is applied.
+ * </p>
  */
 public final class PaymentListener implements Listener<PaymentEvent> {
+    /**
+     * Creates a payment listener which settles through the engine of Vortex.
+     */
+    public PaymentListener() {
+        this(Vortex.getSettlementEngine());
+    }
+
+    /**
+     * Creates a payment listener.
+     *
+     * @param engine Engine to settle payments through
+     */
+    public PaymentListener(@Nonnull SettlementEngine engine) {
+        this(engine, null);
+    }
+
+    /**
+     * Creates a payment listener which records settled payments.
+     *
+     * @param engine Engine to settle payments through
+     * @param ledger Ledger to write payments ahead to, or {@code null}
+     */
+    public PaymentListener(@Nonnull SettlementEngine engine, @Nullable PaymentLedger ledger) {
+        this.engine = engine;
+        this.ledger = ledger;
+    }
+
     @Override
     public void handle(@Nonnull PaymentEvent event) {
         if (event.isCancelled()) return;
 
-        final EconomicActor sender = event.getSender();
-        final EconomicActor recipient = event.getRecipient();
-        final AssetStack payment = event.getPayment();
+        if (event.getPayment().getUnits() <= 0) {
+            event.setCancelled(true);
+            return;
+        }
 
-        if (!sender.getPortfolio().contains(payment)) return;
+        final PaymentLedger ledger = this.ledger;
+        final Runnable journal = ledger != null ? () -> ledger.append(event) : null;
 
-        sender.getPortfolio().removeStack(payment);
-        recipient.getPortfolio().addStack(payment);
+        if (!engine.settle(event.getSenderPortfolio(), event.getRecipientPortfolio(), event.getPayment(), journal)) {
+            // The payment failed, so its successors must not run
+            event.setCancelled(true);
+        }
+    }
+
+    /**
+     * Gets the engine payments are settled through.
+     *
+     * @return {@link SettlementEngine}
+     */
+    @Nonnull
+    public SettlementEngine getEngine() {
+        return engine;
     }
 
     @Nonnull
@@ -31,4 +84,19 @@ public final class PaymentListener implements Listener<PaymentEvent> {
     public Class<PaymentEvent> getEventClass() {
         return PaymentEvent.class;
     }
+
+    /**
+     * Gets the ledger payments are written ahead to.
+     *
+     * @return {@link PaymentLedger}, or {@code null} if payments are not recorded
+     */
+    @Nullable
+    public PaymentLedger getLedger() {
+        return ledger;
+    }
+
+    @Nonnull
+    private final SettlementEngine engine;
+    @Nullable
+    private final PaymentLedger ledger;
 }
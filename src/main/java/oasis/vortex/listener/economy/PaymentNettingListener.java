@@ -0,0 +1,327 @@
+package oasis.vortex.listener.economy;
+
+import oasis.vortex.Vortex;
+import oasis.vortex.event.economy.PaymentEvent;
+import oasis.vortex.ledger.PaymentLedger;
+import oasis.vortex.listener.Listener;
+import oasis.vortex.object.actor.EconomicActor;
+import oasis.vortex.tickable.Tickable;
+import oasis.vortex.util.collection.list.BetterArrayList;
+import oasis.vortex.util.collection.list.BetterList;
+import oasis.vortex.util.collection.queue.MpscQueue;
+import oasis.vortex.util.economy.AssetStack;
+import oasis.vortex.util.economy.SettlementEngine;
+import org.joda.time.Duration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h2>PaymentNettingListener</h2>
+ * <p>
+ * An alternative to {@link PaymentListener}, which settles payments in batches instead of one at a time.
+ * Only one of the two should be registered.
+ * </p>
+ * <p>
+ * Payments are collected as they are handled, and settled the next time this listener is ticked.
+ * The payments of a batch are grouped by pair of actors and by asset, and the flows in both directions
+ * are netted into one position. Each position is checked for solvency and settled once, through the
+ * {@link SettlementEngine}. When the paying side of a position cannot afford the net amount,
+ * the payments of that position fall back to being settled one at a time, in the order they were handled.
+ * Positions are settled in the order of their first payment in the batch. This keeps the order of settlement,
+ * and which positions fail when an actor cannot afford all of them, deterministic.
+ * </p>
+ * <p>
+ * Since payments are settled after they have been dispatched, failed payments are not cancelled.
+ * The outcome of every payment is reported to the {@link PaymentCallback} instead.
+ * Payments with a successor are settled immediately, like {@link PaymentListener} does,
+ * so that a failed payment still prevents its successors from being called.
+ * </p>
+ * <p>
+ * A payment whose settlement throws, for example because the ledger rejected it, is reported as failed,
+ * and the exception is passed to the uncaught exception handler. The other payments of the batch are still settled.
+ * </p>
+ */
+public final class PaymentNettingListener implements Listener<PaymentEvent>, Tickable {
+    /**
+     * Creates a netting listener which settles through the engine of Vortex.
+     */
+    public PaymentNettingListener() {
+        this(Vortex.getSettlementEngine(), null, null);
+    }
+
+    /**
+     * Creates a netting listener.
+     *
+     * @param engine   Engine to settle payments through
+     * @param ledger   Ledger to write settlements ahead to, or {@code null}
+     * @param callback Callback to report the outcome of each payment to, or {@code null}
+     */
+    public PaymentNettingListener(
+            @Nonnull SettlementEngine engine,
+            @Nullable PaymentLedger ledger,
+            @Nullable PaymentCallback callback
+    ) {
+        this.engine = engine;
+        this.ledger = ledger;
+        this.callback = callback;
+        this.pending = new MpscQueue<>();
+        this.positions = new LinkedHashMap<>();
+        this.netted = new LongAdder();
+        this.fallbacks = new LongAdder();
+        this.errors = new LongAdder();
+    }
+
+    @Override
+    public void handle(@Nonnull PaymentEvent event) {
+        if (event.isCancelled()) return;
+
+        if (event.getSuccessor() == null) {
+            pending.offer(event);
+            return;
+        }
+
+        // The outcome must be known before the successors are dispatched
+        final boolean settled = settle(event.getSender(), event.getRecipient(), event.getPayment());
+        if (!settled) event.setCancelled(true);
+
+        report(event, settled);
+    }
+
+    @Nonnull
+    @Override
+    public Class<PaymentEvent> getEventClass() {
+        return PaymentEvent.class;
+    }
+
+    /**
+     * Settles every payment collected since the last tick.
+     * This must only be called from one thread at a time.
+     *
+     * @param delta Delta between the last tick and this one
+     */
+    @Override
+    public void tick(@Nonnull Duration delta) {
+        if (pending.isEmpty()) return;
+
+        try {
+            pending.drain(this::collect);
+
+            for (Position position : positions.values()) {
+                try {
+                    settle(position);
+                } catch (RuntimeException e) {
+                    // The net transfer was not applied, so each payment is settled on its own
+                    report(e);
+                    settleGross(position);
+                }
+            }
+        } finally {
+            positions.clear();
+        }
+    }
+
+    //
+    // Netting
+    //
+
+    /**
+     * Adds a payment to the position of its pair of actors and asset.
+     * This never throws, since the queue would lose the remaining payments.
+     */
+    private void collect(@Nonnull PaymentEvent event) {
+        if (event.getPayment().getUnits() <= 0) {
+            report(event, false);
+            return;
+        }
+
+        final EconomicActor sender = event.getSender();
+        final EconomicActor recipient = event.getRecipient();
+        final boolean forward = sender.getUniqueId().compareTo(recipient.getUniqueId()) <= 0;
+
+        final EconomicActor first = forward ? sender : recipient;
+        final EconomicActor second = forward ? recipient : sender;
+        final Key key = new Key(first, second, event.getPayment().getAsset().getStackingKey());
+
+        Position position = positions.get(key);
+
+        if (position == null) {
+            position = new Position(first, second, event.getPayment());
+            positions.put(key, position);
+        }
+
+        final long units = event.getPayment().getUnits();
+        position.payments.add(event);
+
+        if (position.gross) return;
+
+        try {
+            position.net = Math.addExact(position.net, forward ? units : -units);
+        } catch (ArithmeticException e) {
+            // Too large to net
+            position.gross = true;
+        }
+    }
+
+    /**
+     * Settles the net amount of a position, or each of its payments when the net amount cannot be afforded.
+     */
+    private void settle(@Nonnull Position position) {
+        if (position.gross) {
+            settleGross(position);
+            return;
+        }
+
+        final long net = position.net;
+        final AssetStack amount = AssetStack.ofUnits(position.template.getAsset(), Math.abs(net));
+
+        final boolean settled = net == 0
+                || (net > 0 ? settle(position.first, position.second, amount) : settle(position.second, position.first, amount));
+
+        if (settled) {
+            netted.add(position.payments.size());
+            for (PaymentEvent event : position.payments) report(event, true);
+            return;
+        }
+
+        settleGross(position);
+    }
+
+    /**
+     * Settles each payment of a position, in the order the payments were handled.
+     */
+    private void settleGross(@Nonnull Position position) {
+        fallbacks.add(position.payments.size());
+
+        for (PaymentEvent event : position.payments) {
+            boolean settled = false;
+
+            try {
+                settled = settle(event.getSender(), event.getRecipient(), event.getPayment());
+            } catch (RuntimeException e) {
+                errors.increment();
+                report(e);
+            }
+
+            report(event, settled);
+        }
+    }
+
+    private boolean settle(@Nonnull EconomicActor sender, @Nonnull EconomicActor recipient, @Nonnull AssetStack amount) {
+        final PaymentLedger ledger = this.ledger;
+        final Runnable journal = ledger != null
+                ? () -> ledger.appendTransfer(sender.getUniqueId(), recipient.getUniqueId(), amount)
+                : null;
+
+        return engine.settle(sender.getPortfolio(), recipient.getPortfolio(), amount, journal);
+    }
+
+    private void report(@Nonnull PaymentEvent event, boolean settled) {
+        final PaymentCallback callback = this.callback;
+        if (callback == null) return;
+
+        try {
+            callback.onPayment(event, settled);
+        } catch (RuntimeException e) {
+            report(e);
+        }
+    }
+
+    private static void report(@Nonnull Throwable failure) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, failure);
+    }
+
+    /**
+     * Identifies a position by its pair of actors, in canonical order, and the stacking key of its asset.
+     */
+    private record Key(@Nonnull EconomicActor first, @Nonnull EconomicActor second, @Nonnull Object asset) {}
+
+    /**
+     * The payments between two actors in one asset, and their net amount from the first to the second actor.
+     */
+    private static final class Position {
+        private Position(@Nonnull EconomicActor first, @Nonnull EconomicActor second, @Nonnull AssetStack template) {
+            this.first = first;
+            this.second = second;
+            this.template = template;
+            this.payments = new BetterArrayList<>();
+        }
+
+        @Nonnull
+        private final EconomicActor first;
+        @Nonnull
+        private final EconomicActor second;
+        @Nonnull
+        private final AssetStack template;
+        @Nonnull
+        private final BetterList<PaymentEvent> payments;
+        private long net = 0;
+        private boolean gross = false;
+    }
+
+    //
+    // Metrics
+    //
+
+    /**
+     * Gets the number of payments waiting to be settled on the next tick.
+     *
+     * @return Number of pending payments
+     */
+    @Nonnegative
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the total number of payments settled as part of a net position.
+     *
+     * @return Number of netted payments
+     */
+    @Nonnegative
+    public long getNettedCount() {
+        return netted.sum();
+    }
+
+    /**
+     * Gets the total number of payments which fell back to being settled one at a time.
+     *
+     * @return Number of payments settled individually
+     */
+    @Nonnegative
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * Gets the total number of payments which failed because settling them threw an exception.
+     *
+     * @return Number of payments failed by an exception
+     */
+    @Nonnegative
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Nonnull
+    private final SettlementEngine engine;
+    @Nullable
+    private final PaymentLedger ledger;
+    @Nullable
+    private final PaymentCallback callback;
+    @Nonnull
+    private final MpscQueue<PaymentEvent> pending;
+    @Nonnull
+    private final Map<Key, Position> positions;
+    @Nonnull
+    private final LongAdder netted;
+    @Nonnull
+    private final LongAdder fallbacks;
+    @Nonnull
+    private final LongAdder errors;
+}
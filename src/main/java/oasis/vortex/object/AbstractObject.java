@@ -1,12 +1,16 @@
 package oasis.vortex.object;
 
+import oasis.vortex.util.physics.BoundingBox;
 import oasis.vortex.util.physics.Location;
 import oasis.vortex.util.physics.Mass;
 import oasis.vortex.util.physics.Vector;
 import oasis.vortex.util.physics.Volume;
+import oasis.vortex.world.physics.PhysicsStore;
 import org.joda.time.Duration;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.validation.constraints.Positive;
 import java.util.UUID;
 
@@ -17,6 +21,10 @@ import java.util.UUID;
  *     Parameters and methods present in all objects are defined and handled.
  * </p>
  * <p>
+ *     Abstract objects support attachment to a {@link PhysicsStore}.
+ *     Their bounding box is cached, and only recomputed when the location or volume has changed.
+ * </p>
+ * <p>
  *     This class is abstract, and is not intended to be instantiated directly.
  * </p>
  */
@@ -91,8 +99,8 @@ public abstract class AbstractObject implements Object {
      */
     protected AbstractObject(@Nonnull AbstractObject other) {
         this.uniqueId = other.uniqueId;
-        this.location = other.location;
-        this.vector = other.vector;
+        this.location = other.getLocation();
+        this.vector = other.getVector();
         this.mass = other.mass;
         this.volume = other.volume;
         this.fluid = other.fluid;
@@ -117,6 +125,11 @@ public abstract class AbstractObject implements Object {
     private boolean obeysPhysics;
     @Positive
     private double dragCoefficient;
+    @Nullable
+    private PhysicsStore store;
+    private int slot;
+    @Nonnull
+    private final BoundingBox boundingBox = new BoundingBox();
 
     //
     // Tick
@@ -143,12 +156,14 @@ public abstract class AbstractObject implements Object {
     @Override
     @Nonnull
     public Location getLocation() {
+        if (store != null) location = store.readLocation(slot, location);
         return location;
     }
 
     @Override
     @Nonnull
     public Vector getVector() {
+        if (store != null) vector = store.readVector(slot, vector);
         return vector;
     }
 
@@ -164,6 +179,13 @@ public abstract class AbstractObject implements Object {
         return volume;
     }
 
+    @Override
+    @Nonnull
+    public BoundingBox getBoundingBox() {
+        if (store != null) return boundingBox.update(store.getX(slot), store.getY(slot), store.getZ(slot), volume);
+        return boundingBox.update(location.x(), location.y(), location.z(), volume);
+    }
+
     @Override
     public boolean isFluid() {
         return fluid;
@@ -183,11 +205,13 @@ public abstract class AbstractObject implements Object {
     @Override
     public void setLocation(@Nonnull Location location) {
         this.location = location;
+        if (store != null) store.setPosition(slot, location.x(), location.y(), location.z());
     }
 
     @Override
     public void setVector(@Nonnull Vector vector) {
         this.vector = vector;
+        if (store != null) store.setVelocity(slot, vector.x(), vector.y(), vector.z());
     }
 
     @Override
@@ -214,4 +238,20 @@ public abstract class AbstractObject implements Object {
     public void setDragCoefficient(@Positive double dragCoefficient) {
         this.dragCoefficient = dragCoefficient;
     }
+
+    @Override
+    public boolean attach(@Nonnull PhysicsStore store, @Nonnegative int slot) {
+        this.store = store;
+        this.slot = slot;
+        return true;
+    }
+
+    @Override
+    public void detach(@Nonnull PhysicsStore store) {
+        if (this.store != store) return;
+
+        this.location = store.readLocation(slot, location);
+        this.vector = store.readVector(slot, vector);
+        this.store = null;
+    }
 }
@@ -1,13 +1,17 @@
 package oasis.vortex.object;
 
+import oasis.vortex.util.physics.BoundingBox;
 import oasis.vortex.util.physics.Location;
 import oasis.vortex.util.physics.Mass;
 import oasis.vortex.util.physics.Vector;
 import oasis.vortex.util.physics.Volume;
 import oasis.vortex.world.World;
+import oasis.vortex.world.physics.PhysicsStore;
 import org.joda.time.Duration;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.UUID;
 
 /**
@@ -34,6 +38,10 @@ public class DummyObject implements Object {
     private boolean fluid;
     private boolean obeysPhysics;
     private double dragCoefficient;
+    @Nullable
+    private PhysicsStore store;
+    private int slot;
+    private final BoundingBox boundingBox = new BoundingBox();
 
     @Override
     public void tick(@Nonnull Duration delta) {
@@ -49,12 +57,14 @@ public class DummyObject implements Object {
     @Nonnull
     @Override
     public Location getLocation() {
+        if (store != null) location = store.readLocation(slot, location);
         return location;
     }
 
     @Nonnull
     @Override
     public Vector getVector() {
+        if (store != null) vector = store.readVector(slot, vector);
         return vector;
     }
 
@@ -70,6 +80,13 @@ public class DummyObject implements Object {
         return volume;
     }
 
+    @Nonnull
+    @Override
+    public BoundingBox getBoundingBox() {
+        if (store != null) return boundingBox.update(store.getX(slot), store.getY(slot), store.getZ(slot), volume);
+        return boundingBox.update(location.x(), location.y(), location.z(), volume);
+    }
+
     @Override
     public boolean isFluid() {
         return fluid;
@@ -88,11 +105,13 @@ public class DummyObject implements Object {
     @Override
     public void setLocation(@Nonnull Location location) {
         this.location = location;
+        if (store != null) store.setPosition(slot, location.x(), location.y(), location.z());
     }
 
     @Override
     public void setVector(@Nonnull Vector vector) {
         this.vector = vector;
+        if (store != null) store.setVelocity(slot, vector.x(), vector.y(), vector.z());
     }
 
     @Override
@@ -117,4 +136,20 @@ public class DummyObject implements Object {
     public void setDragCoefficient(double dragCoefficient) {
         this.dragCoefficient = dragCoefficient;
     }
+
+    @Override
+    public boolean attach(@Nonnull PhysicsStore store, @Nonnegative int slot) {
+        this.store = store;
+        this.slot = slot;
+        return true;
+    }
+
+    @Override
+    public void detach(@Nonnull PhysicsStore store) {
+        if (this.store != store) return;
+
+        this.location = store.readLocation(slot, location);
+        this.vector = store.readVector(slot, vector);
+        this.store = null;
+    }
 }
@@ -4,7 +4,9 @@ import oasis.vortex.tickable.Tickable;
 import oasis.vortex.util.meta.Unique;
 import oasis.vortex.util.physics.*;
 import oasis.vortex.world.World;
+import oasis.vortex.world.physics.PhysicsStore;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.validation.constraints.Positive;
 
@@ -61,23 +63,33 @@ public interface Object extends Unique, Tickable {
     @Nonnull
     default TriLocation getTriLocation() { return new TriLocation(getLocation(), getVolume()); }
 
+    /**
+     * Gets the axis-aligned bounding box of this object.
+     * Implementations may cache the box and update it in place when the location or volume changes,
+     * so the returned box should not be retained or modified by the caller.
+     *
+     * @return {@link BoundingBox}
+     */
+    @Nonnull
+    default BoundingBox getBoundingBox() { return getTriLocation().toBoundingBox(); }
+
     /**
      * Checks if this object contains another object in spacial context.
      *
      * @param other Other object
-     * @return {@code true} if the other object's TriLocation is within the bounds of this object's TriLocation
-     * @see TriLocation#contains(TriLocation) 
+     * @return {@code true} if the other object's bounding box is within the bounds of this object's bounding box
+     * @see BoundingBox#contains(BoundingBox)
      */
-    default boolean contains(@Nonnull Object other) { return getTriLocation().contains(other.getTriLocation()); }
+    default boolean contains(@Nonnull Object other) { return getBoundingBox().contains(other.getBoundingBox()); }
 
     /**
      * Checks if this object overlaps another object in spacial context.
-     * 
+     *
      * @param other Other object
-     * @return {@code true} if the other object's TriLocation is within the bounds of this object's TriLocation
-     * @see TriLocation#overlaps(TriLocation) 
+     * @return {@code true} if the bounding boxes of the two objects overlap
+     * @see BoundingBox#overlaps(BoundingBox)
      */
-    default boolean overlaps(@Nonnull Object other) { return getTriLocation().overlaps(other.getTriLocation()); }
+    default boolean overlaps(@Nonnull Object other) { return getBoundingBox().overlaps(other.getBoundingBox()); }
 
     /**
      * Gets the density of this object, denoted in kilograms per cubic meter.
@@ -167,4 +179,30 @@ public interface Object extends Unique, Tickable {
      */
     void setDragCoefficient(@Positive double coefficient);
 
+    //
+    // Physics store
+    //
+
+    /**
+     * Attaches this object to a slot of a {@link PhysicsStore}.
+     * While attached, the location and vector of this object are stored in the store,
+     * and {@link Object#getLocation()} and {@link Object#getVector()} are materialized from it on demand.
+     * Objects which do not support attachment are synchronized by the store instead.
+     * Since the store is written component by component, attached objects must only be read while holding
+     * the monitor of their world, or another thread may observe a half-updated location.
+     *
+     * @param store Store to attach to
+     * @param slot  Slot this object occupies
+     * @return {@code true} if this object has been attached
+     */
+    default boolean attach(@Nonnull PhysicsStore store, @Nonnegative int slot) { return false; }
+
+    /**
+     * Detaches this object from a {@link PhysicsStore}.
+     * The current location and vector are copied back into this object.
+     * This does nothing if this object is not attached to given store.
+     *
+     * @param store Store to detach from
+     */
+    default void detach(@Nonnull PhysicsStore store) {}
 }
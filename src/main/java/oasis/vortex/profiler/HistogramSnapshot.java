@@ -0,0 +1,110 @@
+package oasis.vortex.profiler;
+
+import javax.annotation.Nonnegative;
+
+/**
+ * <h2>HistogramSnapshot</h2>
+ * <p>
+ * An immutable summary of a {@link LatencyHistogram}.
+ * Every value is denoted in nanoseconds.
+ * </p>
+ * <p>
+ * This is a class with getters instead of a record, so that it can be exposed as open data through JMX.
+ * </p>
+ */
+public final class HistogramSnapshot {
+    /**
+     * Creates a new snapshot.
+     *
+     * @param count Number of recorded values
+     * @param min   Smallest recorded value
+     * @param max   Largest recorded value
+     * @param mean  Mean of recorded values
+     * @param p50   Median
+     * @param p90   90th percentile
+     * @param p99   99th percentile
+     * @param p999  99.9th percentile
+     */
+    public HistogramSnapshot(
+            @Nonnegative long count,
+            @Nonnegative long min,
+            @Nonnegative long max,
+            @Nonnegative double mean,
+            @Nonnegative long p50,
+            @Nonnegative long p90,
+            @Nonnegative long p99,
+            @Nonnegative long p999
+    ) {
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+    }
+
+    private final long count;
+    private final long min;
+    private final long max;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+
+    @Nonnegative
+    public long getCount() {
+        return count;
+    }
+
+    @Nonnegative
+    public long getMin() {
+        return min;
+    }
+
+    @Nonnegative
+    public long getMax() {
+        return max;
+    }
+
+    @Nonnegative
+    public double getMean() {
+        return mean;
+    }
+
+    @Nonnegative
+    public long getP50() {
+        return p50;
+    }
+
+    @Nonnegative
+    public long getP90() {
+        return p90;
+    }
+
+    @Nonnegative
+    public long getP99() {
+        return p99;
+    }
+
+    @Nonnegative
+    public long getP999() {
+        return p999;
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{" +
+                "count=" + count +
+                ", min=" + min +
+                ", max=" + max +
+                ", mean=" + mean +
+                ", p50=" + p50 +
+                ", p90=" + p90 +
+                ", p99=" + p99 +
+                ", p999=" + p999 +
+                '}';
+    }
+}
@@ -0,0 +1,186 @@
+package oasis.vortex.profiler;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <h2>LatencyHistogram</h2>
+ * <p>
+ * A fixed-size histogram of latencies, denoted in nanoseconds.
+ * Values are grouped into logarithmic buckets, each power of two being split into
+ * {@value LatencyHistogram#SUB_BUCKETS} linear sub-buckets, which bounds the relative error
+ * of reported percentiles to about 3%.
+ * </p>
+ * <p>
+ * Recording a value does not allocate and does not lock, and values can be recorded from multiple threads.
+ * Reads are not atomic with respect to concurrent writes, which is acceptable for monitoring.
+ * </p>
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.count = new AtomicLong();
+        this.total = new AtomicLong();
+        this.min = new AtomicLong(Long.MAX_VALUE);
+        this.max = new AtomicLong();
+    }
+
+    @Nonnull
+    private final AtomicLongArray buckets;
+    @Nonnull
+    private final AtomicLong count;
+    @Nonnull
+    private final AtomicLong total;
+    @Nonnull
+    private final AtomicLong min;
+    @Nonnull
+    private final AtomicLong max;
+
+    /**
+     * Records a latency. Negative values are recorded as zero.
+     *
+     * @param nanos Latency in nanoseconds
+     */
+    public void record(long nanos) {
+        final long value = Math.max(nanos, 0);
+
+        buckets.incrementAndGet(indexOf(value));
+        count.incrementAndGet();
+        total.addAndGet(value);
+
+        long current;
+        while (value < (current = min.get()) && !min.compareAndSet(current, value)) Thread.onSpinWait();
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) Thread.onSpinWait();
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return Count
+     */
+    @Nonnegative
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Gets the smallest recorded value.
+     *
+     * @return Minimum in nanoseconds, or {@code 0} if nothing has been recorded
+     */
+    @Nonnegative
+    public long getMin() {
+        final long value = min.get();
+        return value == Long.MAX_VALUE ? 0 : value;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return Maximum in nanoseconds
+     */
+    @Nonnegative
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     *
+     * @return Mean in nanoseconds, or {@code 0} if nothing has been recorded
+     */
+    @Nonnegative
+    public double getMean() {
+        final long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Gets the value at given percentile.
+     *
+     * @param percentile Percentile between {@code 0} and {@code 100}
+     * @return Value in nanoseconds, or {@code 0} if nothing has been recorded
+     * @throws IllegalArgumentException When the percentile is out of range
+     */
+    @Nonnegative
+    public long getValueAtPercentile(double percentile) throws IllegalArgumentException {
+        if (!(percentile >= 0 && percentile <= 100)) throw new IllegalArgumentException();
+
+        final long n = count.get();
+        if (n == 0) return 0;
+
+        final long rank = Math.max((long) Math.ceil(percentile / 100 * n), 1);
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(highestValueOf(i), getMax());
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Creates an immutable snapshot of this histogram.
+     *
+     * @return {@link HistogramSnapshot}
+     */
+    @Nonnull
+    public HistogramSnapshot snapshot() {
+        return new HistogramSnapshot(
+                getCount(),
+                getMin(),
+                getMax(),
+                getMean(),
+                getValueAtPercentile(50),
+                getValueAtPercentile(90),
+                getValueAtPercentile(99),
+                getValueAtPercentile(99.9)
+        );
+    }
+
+    /**
+     * Clears every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) buckets.set(i, 0);
+
+        count.set(0);
+        total.set(0);
+        min.set(Long.MAX_VALUE);
+        max.set(0);
+    }
+
+    //
+    // Buckets
+    //
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+
+        return SUB_BUCKETS + shift * SUB_BUCKETS + mantissa;
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+
+        final int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        final long mantissa = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        final long lowest = (SUB_BUCKETS + mantissa) << shift;
+
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,66 @@
+package oasis.vortex.profiler;
+
+import java.util.Map;
+
+/**
+ * <h2>TickProfilerMXBean</h2>
+ * <p>
+ * The management interface of {@link TickProfiler}, exposed through JMX.
+ * Latencies are keyed by name, and every value is denoted in nanoseconds.
+ * </p>
+ */
+public interface TickProfilerMXBean {
+    /**
+     * Checks if the profiler is recording.
+     *
+     * @return {@code true} if enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * Sets whether the profiler is recording.
+     *
+     * @param enabled {@code true} to enable recording
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Gets the latencies of each tick phase.
+     *
+     * @return Latencies keyed by phase name
+     */
+    Map<String, HistogramSnapshot> getPhaseLatencies();
+
+    /**
+     * Gets the latencies of each registered tickable.
+     *
+     * @return Latencies keyed by tickable name
+     */
+    Map<String, HistogramSnapshot> getTickableLatencies();
+
+    /**
+     * Gets the tick latencies of each world.
+     *
+     * @return Latencies keyed by world name
+     */
+    Map<String, HistogramSnapshot> getWorldLatencies();
+
+    /**
+     * Gets the handling latencies of each listener.
+     *
+     * @return Latencies keyed by listener name
+     */
+    Map<String, HistogramSnapshot> getListenerLatencies();
+
+    /**
+     * Gets the current values of every registered gauge, such as queue depths and overrun ticks.
+     *
+     * @return Values keyed by gauge name
+     */
+    Map<String, Long> getGauges();
+
+    /**
+     * Clears every recorded latency.
+     */
+    void reset();
+}
@@ -3,16 +3,32 @@ package oasis.vortex.scheduler;
 import oasis.vortex.task.Task;
 import oasis.vortex.util.collection.list.BetterArrayList;
 import oasis.vortex.util.collection.list.BetterList;
-import org.joda.time.DateTime;
+import oasis.vortex.util.collection.list.CopyOnWriteBetterList;
 import org.joda.time.Duration;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
 
 /**
  * <h2>AbstractScheduler</h2>
  * <p>A superclass for easier implementation of {@link Scheduler}.</p>
+ * <p>
+ * By default, tasks are executed, then the scheduler waits for one interval.
+ * The actual period is therefore the interval plus the time the tasks took.
+ * Schedulers which require a stable rate can override {@link AbstractScheduler#isFixedTimestep()}.
+ * </p>
  */
 public abstract class AbstractScheduler<T extends Task> implements Scheduler<T> {
+    /**
+     * The default maximum number of ticks a fixed-timestep scheduler runs back-to-back to catch up.
+     */
+    public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+
     @Override
     public void registerTask(@Nonnull T task) {
         tasks.add(task);
@@ -34,39 +50,232 @@ public abstract class AbstractScheduler<T extends Task> implements Scheduler<T>
         return new BetterArrayList<>(tasks);
     }
 
-    private final BetterList<T> tasks;
+    /**
+     * Gets the registered tasks without copying them.
+     * The array is a snapshot, which is replaced whenever tasks are registered or unregistered,
+     * so it can be iterated without allocating and without locking. It must not be modified.
+     *
+     * @return Registered tasks
+     */
     @Nonnull
-    private DateTime lastLoop = DateTime.now();
-    private boolean active = false;
+    protected final T[] getTaskArray() {
+        return tasks.array();
+    }
+
+    /**
+     * Whether this scheduler runs in fixed-timestep mode.
+     * <p>
+     * Fixed-timestep schedulers track their deadlines on {@link System#nanoTime()},
+     * so the time spent executing tasks does not delay the next tick.
+     * When the tasks take longer than one interval, missed ticks are run back-to-back,
+     * up to {@link AbstractScheduler#getMaxCatchUpTicks()} at a time. Ticks beyond that are skipped.
+     * Every task is given the interval as its delta, regardless of the actual time elapsed.
+     * </p>
+     *
+     * @return {@code true} if this scheduler runs in fixed-timestep mode
+     */
+    public boolean isFixedTimestep() {
+        return false;
+    }
+
+    /**
+     * Gets the maximum number of ticks run back-to-back in order to catch up.
+     * This is only used in fixed-timestep mode.
+     *
+     * @return Maximum number of catch-up ticks
+     */
+    @Positive
+    public int getMaxCatchUpTicks() {
+        return DEFAULT_MAX_CATCH_UP_TICKS;
+    }
+
+    @Nonnegative
+    @Override
+    public long getOverrunTicks() {
+        return overrunTicks;
+    }
 
-    @SuppressWarnings("BusyWait")
     @Nonnull
-    private final Thread thread = new Thread(() -> {
-        while (active) {
-            final Duration delta = new Duration(lastLoop, DateTime.now());
-            getTasks().forEach(t -> t.execute(delta));
-            lastLoop = DateTime.now();
-
-            try {
-                Thread.sleep(getInterval().getMillis());
-            } catch (InterruptedException e) {
-                stop();
+    private final CopyOnWriteBetterList<T> tasks;
+    private volatile boolean active = false;
+    private volatile long overrunTicks = 0;
+
+    @Nullable
+    private volatile Thread thread = null;
+
+    private void loop() {
+        try {
+            if (isFixedTimestep()) loopFixed();
+            else loopVariable();
+        } finally {
+            exitLoop();
+        }
+    }
+
+    /**
+     * Marks this scheduler as stopped once its loop has exited, unless the loop has already been replaced by a restart.
+     */
+    private synchronized void exitLoop() {
+        if (thread != Thread.currentThread()) return;
+
+        active = false;
+        thread = null;
+        onStopped();
+    }
+
+    /**
+     * Checks if the current thread is the running thread of this scheduler.
+     * Threads of previous runs exit once they notice they have been replaced.
+     *
+     * @return {@code true} if the loop on the current thread should keep running
+     */
+    private boolean isRunning() {
+        return active && thread == Thread.currentThread();
+    }
+
+    private void loopVariable() {
+        final long interval = TimeUnit.MILLISECONDS.toNanos(getInterval().getMillis());
+        long lastLoop = System.nanoTime();
+        Duration delta = Duration.ZERO;
+
+        while (isRunning()) {
+            final long now = System.nanoTime();
+            final long millis = TimeUnit.NANOSECONDS.toMillis(now - lastLoop);
+
+            // Consecutive ticks usually take the same number of milliseconds, so the delta is reused
+            if (delta.getMillis() != millis) delta = new Duration(millis);
+
+            executeTasks(delta);
+            lastLoop = now;
+
+            if (!await(interval)) stopFromLoop();
+        }
+    }
+
+    private void loopFixed() {
+        final Duration delta = getInterval();
+        final long interval = Math.max(TimeUnit.MILLISECONDS.toNanos(delta.getMillis()), 1);
+        final int maxCatchUpTicks = Math.max(getMaxCatchUpTicks(), 1);
+
+        long previous = System.nanoTime();
+        long accumulator = interval; // The first tick is run immediately
+
+        while (isRunning()) {
+            final long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+
+            int ticks = 0;
+            while (accumulator >= interval && ticks < maxCatchUpTicks && isRunning()) {
+                executeTasks(delta);
+                accumulator -= interval;
+                ticks++;
             }
+
+            long overruns = Math.max(ticks - 1, 0);
+
+            if (accumulator >= interval) {
+                // Still behind after catching up; the remaining ticks are skipped
+                overruns += accumulator / interval;
+                accumulator %= interval;
+            }
+
+            if (overruns != 0) overrunTicks += overruns;
+
+            if (!await(interval - accumulator)) stopFromLoop();
         }
-    });
+    }
+
+    /**
+     * Executes every registered task once.
+     * By default, tasks are executed one after another on the scheduler thread.
+     * Subclasses can override this to execute tasks differently.
+     *
+     * @param delta Delta to pass to the tasks
+     */
+    protected void executeTasks(@Nonnull Duration delta) {
+        for (T task : tasks.array()) task.execute(delta);
+    }
 
+    /**
+     * Creates the thread which runs the loop of this scheduler.
+     * A new thread is created every time this scheduler is started.
+     * By default, this is a platform thread.
+     *
+     * @param loop Loop to run
+     * @return Unstarted thread
+     */
+    @Nonnull
+    protected Thread createThread(@Nonnull Runnable loop) {
+        return new Thread(loop);
+    }
+
+    /**
+     * Called on the scheduler thread once its loop has exited, after the last tasks have been executed.
+     * This is not called when the loop has been replaced by a restart in the meantime.
+     * Does nothing by default. Override to release resources held while running.
+     */
+    protected void onStopped() {}
+
+    /**
+     * Parks the scheduler thread until the next tick is due.
+     * Subclasses can override this to wake up early, for example as soon as work arrives.
+     *
+     * @param nanos Duration to wait in nanoseconds
+     * @return {@code false} if the thread has been interrupted
+     */
+    protected boolean await(long nanos) {
+        if (nanos > 0) LockSupport.parkNanos(this, nanos);
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Schedulers can be started again after they have been stopped.
+     * Starting a scheduler which is already running does nothing.
+     * </p>
+     */
     @Override
-    public void start() {
+    public synchronized void start() {
+        if (active) return;
+
+        final Thread t = createThread(this::loop);
+        thread = t;
         active = true;
-        thread.start();
+        t.start();
     }
 
     @Override
-    public void stop() {
+    public synchronized void stop() {
         active = false;
+
+        final Thread t = thread;
+        if (t != null) LockSupport.unpark(t);
+    }
+
+    /**
+     * Stops this scheduler from its own loop, unless the loop has already been replaced by a restart.
+     */
+    private synchronized void stopFromLoop() {
+        if (thread == Thread.currentThread()) active = false;
+    }
+
+    /**
+     * Checks if this scheduler has been started and not stopped since.
+     *
+     * @return {@code true} if this scheduler is running
+     */
+    public boolean isActive() {
+        return active;
     }
 
-    public AbstractScheduler() {
-        this.tasks = new BetterArrayList<>();
+    /**
+     * Creates a new scheduler.
+     *
+     * @param generator Generator of arrays of the task type, e.g. {@code TickTask[]::new}
+     */
+    protected AbstractScheduler(@Nonnull IntFunction<T[]> generator) {
+        this.tasks = new CopyOnWriteBetterList<>(generator);
     }
 }
@@ -4,6 +4,7 @@ import oasis.vortex.task.Task;
 import oasis.vortex.util.collection.list.BetterList;
 import org.joda.time.Duration;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -43,6 +44,15 @@ public interface Scheduler<T extends Task> {
     @Nonnull
     Duration getInterval();
 
+    /**
+     * Gets the number of ticks this scheduler could not run on time.
+     * This includes ticks which were run late in order to catch up, and ticks which were skipped.
+     *
+     * @return Number of overrun ticks
+     */
+    @Nonnegative
+    long getOverrunTicks();
+
     /**
      * Gets a list of all registered tasks of this scheduler.
      *
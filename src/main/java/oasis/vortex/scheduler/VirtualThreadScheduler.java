@@ -0,0 +1,342 @@
+package oasis.vortex.scheduler;
+
+import oasis.vortex.task.Task;
+import org.joda.time.Duration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * <h2>VirtualThreadScheduler</h2>
+ * <p>
+ * A scheduler which executes its tasks concurrently, each on its own virtual thread.
+ * Every tick forks one virtual thread per task, then joins all of them before the next tick starts,
+ * so tasks of the same tick run in parallel but never overlap with the following tick.
+ * The scheduler loop itself also runs on a virtual thread.
+ * </p>
+ * <p>
+ * Each task has a time budget, which defaults to the interval. A task which exceeds its budget
+ * is interrupted, and the tick ends without waiting for it. Such a task is skipped until it finishes,
+ * so one slow task does not hold up the others and never runs concurrently with itself.
+ * A task counts as finished once its execution has actually returned, not when it has been interrupted.
+ * </p>
+ * <p>
+ * Exceptions thrown by tasks and exceeded budgets are reported per task to the failure handler,
+ * and do not stop the scheduler. Without a failure handler, they are passed to the uncaught exception handler.
+ * </p>
+ * <p>
+ * The executor forking the tasks is started with the scheduler, and shut down once the scheduler has stopped.
+ * </p>
+ *
+ * @param <T> Type of task
+ */
+public class VirtualThreadScheduler<T extends Task> extends AbstractScheduler<T> {
+    /**
+     * Creates a new scheduler.
+     *
+     * @param generator     Generator of arrays of the task type, e.g. {@code TickTask[]::new}
+     * @param interval      Interval between ticks
+     * @param fixedTimestep {@code true} to run in fixed-timestep mode
+     * @throws IllegalArgumentException When the interval is not positive
+     */
+    public VirtualThreadScheduler(
+            @Nonnull IntFunction<T[]> generator,
+            @Nonnull Duration interval,
+            boolean fixedTimestep
+    ) throws IllegalArgumentException {
+        super(generator);
+        if (interval.getMillis() <= 0) throw new IllegalArgumentException();
+
+        this.interval = interval;
+        this.fixedTimestep = fixedTimestep;
+        this.executor = null;
+        this.running = ConcurrentHashMap.newKeySet();
+        this.budgets = new ConcurrentHashMap<>();
+        this.failures = new LongAdder();
+        this.timeouts = new LongAdder();
+        this.skipped = new LongAdder();
+        this.failureHandler = null;
+    }
+
+    @Nonnull
+    private final Duration interval;
+    private final boolean fixedTimestep;
+    @Nullable
+    private volatile ExecutorService executor;
+    @Nonnull
+    private final Set<T> running;
+    @Nonnull
+    private final Map<T, Duration> budgets;
+    @Nonnull
+    private final LongAdder failures;
+    @Nonnull
+    private final LongAdder timeouts;
+    @Nonnull
+    private final LongAdder skipped;
+    @Nullable
+    private volatile BiConsumer<? super T, ? super Throwable> failureHandler;
+
+    @Nonnull
+    @Override
+    public Duration getInterval() {
+        return interval;
+    }
+
+    @Override
+    public boolean isFixedTimestep() {
+        return fixedTimestep;
+    }
+
+    @Override
+    public void unregisterTask(@Nonnull T task) {
+        super.unregisterTask(task);
+        budgets.remove(task);
+    }
+
+    @Override
+    public void clearTasks() {
+        super.clearTasks();
+        budgets.clear();
+    }
+
+    //
+    // Budgets
+    //
+
+    /**
+     * Gets the time budget of a task.
+     *
+     * @param task Task to query
+     * @return Time budget, which defaults to the interval
+     */
+    @Nonnull
+    public Duration getTimeBudget(@Nonnull T task) {
+        return budgets.getOrDefault(task, interval);
+    }
+
+    /**
+     * Sets the time budget of a task.
+     * A task which runs longer than its budget is interrupted, and reported as failed with a {@link TimeoutException}.
+     *
+     * @param task   Task to set the budget of
+     * @param budget Time budget
+     * @throws IllegalArgumentException When the budget is not positive
+     */
+    public void setTimeBudget(@Nonnull T task, @Nonnull Duration budget) throws IllegalArgumentException {
+        if (budget.getMillis() <= 0) throw new IllegalArgumentException();
+        budgets.put(task, budget);
+    }
+
+    //
+    // Failures
+    //
+
+    /**
+     * Sets the handler notified whenever a task throws an exception or exceeds its time budget.
+     * The handler is called on the scheduler thread.
+     *
+     * @param handler Handler, or {@code null} to pass failures to the uncaught exception handler
+     */
+    public void setFailureHandler(@Nullable BiConsumer<? super T, ? super Throwable> handler) {
+        this.failureHandler = handler;
+    }
+
+    /**
+     * Gets the total number of task executions which threw an exception.
+     *
+     * @return Number of failed executions
+     */
+    @Nonnegative
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    /**
+     * Gets the total number of task executions which exceeded their time budget.
+     *
+     * @return Number of timed out executions
+     */
+    @Nonnegative
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Gets the total number of task executions skipped because the previous execution had not finished.
+     *
+     * @return Number of skipped executions
+     */
+    @Nonnegative
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    //
+    // Execution
+    //
+
+    @Override
+    protected void executeTasks(@Nonnull Duration delta) {
+        final ExecutorService executor = getExecutor();
+        final T[] tasks = getTaskArray();
+        final Execution[] executions = new Execution[tasks.length];
+        final Future<?>[] forks = new Future<?>[tasks.length];
+        final long[] deadlines = new long[tasks.length];
+        final long start = System.nanoTime();
+
+        // Fork
+        for (int i = 0; i < tasks.length; i++) {
+            final T task = tasks[i];
+
+            // Only released by the execution itself, once it has returned
+            if (!running.add(task)) {
+                skipped.increment();
+                continue;
+            }
+
+            final Execution execution = new Execution(task, delta, running);
+
+            try {
+                forks[i] = executor.submit(execution);
+            } catch (RejectedExecutionException e) {
+                running.remove(task);
+                throw e;
+            }
+
+            executions[i] = execution;
+            deadlines[i] = start + TimeUnit.MILLISECONDS.toNanos(getTimeBudget(task).getMillis());
+        }
+
+        // Join
+        for (int i = 0; i < tasks.length; i++) {
+            final Future<?> fork = forks[i];
+            if (fork == null) continue;
+
+            final T task = tasks[i];
+
+            try {
+                fork.get(Math.max(deadlines[i] - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                executions[i].interrupt();
+                timeouts.increment();
+                fail(task, e);
+            } catch (ExecutionException e) {
+                failures.increment();
+                fail(task, e.getCause());
+            } catch (InterruptedException e) {
+                for (Execution execution : executions) {
+                    if (execution != null) execution.interrupt();
+                }
+
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Shuts down the executor once the scheduler has stopped.
+     * Tasks still running are not interrupted, and finish on their own.
+     */
+    @Override
+    protected void onStopped() {
+        final ExecutorService executor;
+
+        synchronized (this) {
+            executor = this.executor;
+            this.executor = null;
+        }
+
+        if (executor != null) executor.shutdown();
+    }
+
+    @Nonnull
+    private ExecutorService getExecutor() {
+        final ExecutorService executor = this.executor;
+        if (executor != null) return executor;
+
+        synchronized (this) {
+            if (this.executor == null) {
+                this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("vortex-task-", 0).factory());
+            }
+
+            return this.executor;
+        }
+    }
+
+    private void fail(@Nonnull T task, @Nonnull Throwable failure) {
+        final BiConsumer<? super T, ? super Throwable> handler = failureHandler;
+
+        if (handler != null) {
+            handler.accept(task, failure);
+            return;
+        }
+
+        final Thread current = Thread.currentThread();
+        current.getUncaughtExceptionHandler().uncaughtException(current, failure);
+    }
+
+    /**
+     * A single execution of a task, which marks the task as finished once it has returned.
+     * Unlike {@link Future#cancel(boolean)}, interrupting an execution does not mark it as finished early.
+     */
+    private static final class Execution implements Runnable {
+        private Execution(@Nonnull Task task, @Nonnull Duration delta, @Nonnull Set<?> running) {
+            this.task = task;
+            this.delta = delta;
+            this.running = running;
+        }
+
+        @Nonnull
+        private final Task task;
+        @Nonnull
+        private final Duration delta;
+        @Nonnull
+        private final Set<?> running;
+        @Nullable
+        private volatile Thread thread;
+        private volatile boolean interrupted;
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+
+            try {
+                if (!interrupted) task.execute(delta);
+            } finally {
+                thread = null;
+                running.remove(task);
+            }
+        }
+
+        /**
+         * Interrupts this execution, or prevents it from starting if it has not started yet.
+         */
+        private void interrupt() {
+            interrupted = true;
+
+            final Thread thread = this.thread;
+            if (thread != null) thread.interrupt();
+        }
+    }
+
+    @Nonnull
+    @Override
+    protected Thread createThread(@Nonnull Runnable loop) {
+        return Thread.ofVirtual().name("vortex-scheduler").unstarted(loop);
+    }
+}
@@ -9,14 +9,68 @@ import javax.annotation.Nonnull;
 /**
  * <h2>EventScheduler</h2>
  * <p>Handles the scheduling of events.</p>
+ * <p>
+ * By default, the scheduler is signal-driven. Its thread sleeps until an event is called,
+ * and drains the event queue as soon as it is woken up, so events are dispatched without
+ * polling delay and without spinning. The interval only bounds how long the thread sleeps while idle.
+ * Signal-driven waiting requires exactly one registered task. With several tasks, the scheduler
+ * falls back to polling at its interval.
+ * </p>
  */
 public final class EventScheduler extends AbstractScheduler<EventTask> {
+    /**
+     * Creates a signal-driven event scheduler.
+     */
+    public EventScheduler() {
+        this(true);
+    }
+
+    /**
+     * Creates an event scheduler.
+     *
+     * @param signalDriven {@code true} to wake up when events are called, {@code false} to poll at a fixed interval
+     */
+    public EventScheduler(boolean signalDriven) {
+        super(EventTask[]::new);
+        this.signalDriven = signalDriven;
+    }
+
     @Nonnull
     private static final Duration interval = new Duration(100);
 
+    private final boolean signalDriven;
+
     @Nonnull
     @Override
     public Duration getInterval() {
         return interval;
     }
+
+    /**
+     * Checks if this scheduler wakes up when events are called.
+     *
+     * @return {@code true} if signal-driven
+     */
+    public boolean isSignalDriven() {
+        return signalDriven;
+    }
+
+    @Override
+    protected boolean await(long nanos) {
+        if (!signalDriven) return super.await(nanos);
+
+        final EventTask[] tasks = getTaskArray();
+        if (tasks.length != 1) return super.await(nanos);
+
+        tasks[0].awaitEvents(nanos);
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Shuts down the asynchronous listener executors of every registered task.
+     */
+    @Override
+    protected void onStopped() {
+        for (EventTask task : getTaskArray()) task.shutdownAsync();
+    }
 }
@@ -9,8 +9,19 @@ import javax.annotation.Nonnull;
 /**
  * <h2>TickScheduler</h2>
  * <p>Handles the scheduling of ticks.</p>
+ * <p>
+ * Ticks are scheduled with a fixed timestep, so the tick rate stays at 40 Hz
+ * regardless of how long each tick takes to process.
+ * </p>
  */
 public final class TickScheduler extends AbstractScheduler<TickTask> {
+    /**
+     * Creates a new tick scheduler.
+     */
+    public TickScheduler() {
+        super(TickTask[]::new);
+    }
+
     @Nonnull
     private static final Duration interval = new Duration(25);
 
@@ -19,4 +30,9 @@ public final class TickScheduler extends AbstractScheduler<TickTask> {
     public Duration getInterval() {
         return interval;
     }
+
+    @Override
+    public boolean isFixedTimestep() {
+        return true;
+    }
 }
@@ -0,0 +1,80 @@
+package oasis.vortex.state;
+
+import oasis.vortex.object.Object;
+import oasis.vortex.world.World;
+import oasis.vortex.world.WorldObserver;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <h2>ObjectIndex</h2>
+ * <p>
+ * Maps the unique identifier of every object in a {@link State} to the object and the world it is in.
+ * The index observes each world of the state, and is updated whenever an object is added or removed.
+ * </p>
+ * <p>
+ * If two objects share the same unique identifier, the one added last is indexed.
+ * </p>
+ */
+final class ObjectIndex implements WorldObserver {
+    ObjectIndex() {
+        this.entries = new ConcurrentHashMap<>();
+    }
+
+    @Nonnull
+    private final Map<UUID, Entry> entries;
+
+    /**
+     * Starts indexing a world, including the objects it already contains.
+     *
+     * @param world World to index
+     */
+    void addWorld(@Nonnull World world) {
+        world.addObserver(this);
+        world.forEachObject(o -> onObjectAdded(world, o));
+    }
+
+    /**
+     * Stops indexing a world, and removes its objects from the index.
+     *
+     * @param world World to stop indexing
+     */
+    void removeWorld(@Nonnull World world) {
+        world.removeObserver(this);
+        entries.values().removeIf(e -> e.world() == world);
+    }
+
+    /**
+     * Gets the entry of given unique identifier.
+     *
+     * @param uniqueId Unique identifier of the object
+     * @return Entry if found, {@code null} otherwise
+     */
+    @Nullable
+    Entry get(@Nonnull UUID uniqueId) {
+        return entries.get(uniqueId);
+    }
+
+    @Override
+    public void onObjectAdded(@Nonnull World world, @Nonnull Object object) {
+        entries.put(object.getUniqueId(), new Entry(object, world));
+    }
+
+    @Override
+    public void onObjectRemoved(@Nonnull World world, @Nonnull Object object) {
+        // Only remove the entry if it still points to the removed object in the world it was removed from
+        entries.computeIfPresent(object.getUniqueId(), (id, e) -> e.world() == world && e.object() == object ? null : e);
+    }
+
+    /**
+     * An indexed object and the world it is in.
+     *
+     * @param object Object
+     * @param world  World of the object
+     */
+    record Entry(@Nonnull Object object, @Nonnull World world) {}
+}
@@ -9,6 +9,7 @@ import oasis.vortex.world.World;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * <h2>State</h2>
@@ -27,6 +28,17 @@ public interface State extends Tickable {
     @Nonnull
     BetterList<World> getWorlds();
 
+    /**
+     * Gets all worlds in this state as an array, which implementations may share instead of copying.
+     * This is intended for loops which run every tick. The array must not be modified.
+     *
+     * @return Array of {@link World}s
+     */
+    @Nonnull
+    default World[] getWorldArray() {
+        return getWorlds().toArray(World[]::new);
+    }
+
     /**
      * Adds a world to this state.
      *
@@ -46,13 +58,22 @@ public interface State extends Tickable {
     //
 
     /**
-     * Gets a superset of objects from all worlds.
+     * Gets an immutable superset of objects from all worlds.
      *
      * @return Set of {@link Object}s.
      */
     @Nonnull
     BetterSet<Object> getObjects();
 
+    /**
+     * Calls the given action for each object in every world without creating a snapshot.
+     *
+     * @param action Action to call for each object
+     */
+    default void forEachObject(@Nonnull Consumer<? super Object> action) {
+        getWorlds().forEach(w -> w.forEachObject(action));
+    }
+
     /**
      * Searches for an object within this state.
      *
@@ -64,6 +85,17 @@ public interface State extends Tickable {
     @Nonnull
     <O extends Object> ObjectQueryResult<O> queryObject(@Nonnull Class<O> type, @Nonnull UUID uniqueId);
 
+    /**
+     * Searches for an object of any type within this state.
+     *
+     * @param uniqueId Unique identifier of the object
+     * @return {@link ObjectQueryResult}
+     */
+    @Nonnull
+    default ObjectQueryResult<Object> queryObject(@Nonnull UUID uniqueId) {
+        return queryObject(Object.class, uniqueId);
+    }
+
     //
     // Util
     //
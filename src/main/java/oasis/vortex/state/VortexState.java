@@ -1,31 +1,94 @@
 package oasis.vortex.state;
 
+import oasis.vortex.Vortex;
+import oasis.vortex.event.Event;
 import oasis.vortex.object.Object;
+import oasis.vortex.profiler.TickProfiler;
+import oasis.vortex.task.event.EventTask;
 import oasis.vortex.util.collection.list.BetterArrayList;
 import oasis.vortex.util.collection.list.BetterList;
+import oasis.vortex.util.collection.list.CopyOnWriteBetterList;
 import oasis.vortex.util.collection.set.BetterHashSet;
 import oasis.vortex.util.collection.set.BetterSet;
+import oasis.vortex.util.collection.set.UnmodifiableBetterSet;
 import oasis.vortex.world.World;
 import org.joda.time.Duration;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * <h2>VortexState</h2>
  * <p>The default implementation of {@link State}.</p>
+ * <p>
+ * Worlds are ticked one after another by default.
+ * In parallel mode, worlds are ticked concurrently on a {@link ForkJoinPool},
+ * and the tick only ends once every world has finished.
+ * Events called by each world are collected separately, then queued in the order of the worlds,
+ * so the order of events does not depend on thread scheduling.
+ * Worlds ticked in parallel must not share objects.
+ * </p>
  */
 public final class VortexState implements State {
     /**
-     * Creates an empty state.
+     * Creates an empty state which ticks its worlds sequentially.
      */
     public VortexState() {
-        this.worlds = new BetterArrayList<>();
+        this.worlds = new CopyOnWriteBetterList<>(World[]::new);
+        this.index = new ObjectIndex();
+        this.pool = ForkJoinPool.commonPool();
+        this.parallel = false;
+    }
+
+    /**
+     * Creates an empty state which ticks its worlds in parallel on the given pool.
+     *
+     * @param pool Pool to tick worlds on
+     */
+    public VortexState(@Nonnull ForkJoinPool pool) {
+        this.worlds = new CopyOnWriteBetterList<>(World[]::new);
+        this.index = new ObjectIndex();
+        this.pool = pool;
+        this.parallel = true;
     }
 
 
     @Nonnull
-    private final BetterList<World> worlds;
+    private final CopyOnWriteBetterList<World> worlds;
+    @Nonnull
+    private final ObjectIndex index;
+    @Nonnull
+    private final ForkJoinPool pool;
+    private volatile boolean parallel;
+    @Nullable
+    private volatile Snapshot snapshot;
+    @Nullable
+    private volatile TickProfiler profiler;
+
+    /**
+     * Checks if this state ticks its worlds in parallel.
+     *
+     * @return {@code true} if parallel mode is enabled
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Sets whether this state ticks its worlds in parallel.
+     *
+     * @param parallel {@code true} to enable parallel mode
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
 
     @Override
     @Nonnull
@@ -33,39 +96,169 @@ public final class VortexState implements State {
         return new BetterArrayList<>(worlds);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Worlds are stored copy-on-write, so this returns the current array without copying it.
+     * </p>
+     */
+    @Nonnull
+    @Override
+    public World[] getWorldArray() {
+        return worlds.array();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The merged set is cached, and is only rebuilt when a world returns a different snapshot
+     * than the one the cache was built from, or when a world has been added or removed.
+     * </p>
+     */
     @Nonnull
     @Override
     public BetterSet<Object> getObjects() {
-        BetterSet<Object> objects = new BetterHashSet<>();
-        worlds.forEach(w -> objects.addAll(w.getObjects()));
-        return objects;
+        final World[] worlds = this.worlds.array();
+        final Snapshot current = snapshot;
+        if (current != null && current.isCurrent(worlds)) return current.objects();
+
+        final BetterList<BetterSet<Object>> sources = new BetterArrayList<>();
+        final BetterSet<Object> objects = new BetterHashSet<>();
+
+        for (World w : worlds) {
+            final BetterSet<Object> source = w.getObjects();
+            sources.add(source);
+            objects.addAll(source);
+        }
+
+        final Snapshot rebuilt = new Snapshot(sources, UnmodifiableBetterSet.copyOf(objects));
+        snapshot = rebuilt;
+        return rebuilt.objects();
+    }
+
+    @Override
+    public void forEachObject(@Nonnull Consumer<? super Object> action) {
+        for (World w : worlds.array()) w.forEachObject(action);
     }
 
     @Nonnull
     @Override
     public <O extends Object> ObjectQueryResult<O> queryObject(@Nonnull Class<O> type, @Nonnull UUID uniqueId) {
-        for (World world : worlds) {
-            BetterList<O> results = new BetterArrayList<>(world.getObjects().filter(type, o -> o.getUniqueId().equals(uniqueId)));
-            if (results.size() != 0) {
-                return new ObjectQueryResult<>(results.get(0), world);
-            }
+        final ObjectIndex.Entry entry = index.get(uniqueId);
+
+        if (entry == null || !type.isInstance(entry.object())) {
+            return new ObjectQueryResult<>(null, null);
         }
 
-        return new ObjectQueryResult<>(null, null);
+        return new ObjectQueryResult<>(type.cast(entry.object()), entry.world());
     }
 
     @Override
     public void addWorld(@Nonnull World world) {
         worlds.add(world);
+        index.addWorld(world);
     }
 
     @Override
     public void removeWorld(@Nonnull World world) {
-        worlds.remove(world);
+        if (worlds.remove(world)) index.removeWorld(world);
+    }
+
+    /**
+     * Gets the profiler of this state.
+     *
+     * @return Profiler, or {@code null} if this state is not profiled
+     */
+    @Nullable
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Sets the profiler of this state.
+     * The tick time of each world is recorded while the profiler is enabled.
+     *
+     * @param profiler Profiler, or {@code null} to disable profiling
+     */
+    public void setProfiler(@Nullable TickProfiler profiler) {
+        this.profiler = profiler;
     }
 
     @Override
     public void tick(@Nonnull Duration delta) {
-        worlds.forEach(w -> w.tick(delta));
+        final TickProfiler profiler = this.profiler;
+        final boolean profiled = profiler != null && profiler.isEnabled();
+        final World[] worlds = this.worlds.array();
+
+        if (!parallel || worlds.length < 2) {
+            for (World w : worlds) tickWorld(w, delta, profiled ? profiler : null);
+            return;
+        }
+
+        tickParallel(worlds, delta, profiled ? profiler : null);
+    }
+
+    private void tickWorld(@Nonnull World world, @Nonnull Duration delta, @Nullable TickProfiler profiler) {
+        if (profiler == null) {
+            world.tick(delta);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        world.tick(delta);
+        profiler.recordWorld(world, System.nanoTime() - start);
+    }
+
+    private void tickParallel(@Nonnull World[] worlds, @Nonnull Duration delta, @Nullable TickProfiler profiler) {
+        final EventTask eventTask = Vortex.getEventTask();
+        final BetterList<Callable<BetterList<Event>>> ticks = new BetterArrayList<>();
+
+        for (World w : worlds) ticks.add(() -> eventTask.capture(() -> tickWorld(w, delta, profiler)));
+
+        // Returns once every world has finished ticking
+        final List<Future<BetterList<Event>>> results = pool.invokeAll(ticks);
+
+        RuntimeException failure = null;
+
+        for (Future<BetterList<Event>> result : results) {
+            try {
+                eventTask.callEvents(result.get());
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof Error error) throw error;
+
+                if (failure == null) {
+                    failure = cause instanceof RuntimeException r ? r : new RuntimeException(cause);
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        if (failure != null) throw failure;
+    }
+
+    /**
+     * A merged set of objects, along with the world snapshots it was built from.
+     *
+     * @param sources Snapshots of each world, in the order of the worlds
+     * @param objects Merged set of objects
+     */
+    private record Snapshot(
+            @Nonnull BetterList<BetterSet<Object>> sources,
+            @Nonnull BetterSet<Object> objects
+    ) {
+        private boolean isCurrent(@Nonnull World[] worlds) {
+            if (sources.size() != worlds.length) return false;
+
+            for (int i = 0; i < sources.size(); i++) {
+                if (sources.get(i) != worlds[i].getObjects()) return false;
+            }
+
+            return true;
+        }
     }
 }
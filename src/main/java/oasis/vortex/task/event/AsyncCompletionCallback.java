@@ -0,0 +1,35 @@
+package oasis.vortex.task.event;
+
+import oasis.vortex.event.Event;
+import oasis.vortex.listener.Listener;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * <h2>AsyncCompletionCallback</h2>
+ * <p>
+ * Notified by an {@link EventTask} whenever an asynchronous {@link Listener} has finished handling an event.
+ * The callback is called on the virtual thread which ran the listener.
+ * </p>
+ */
+@FunctionalInterface
+public interface AsyncCompletionCallback {
+    /**
+     * Called when an asynchronous listener has finished handling an event.
+     *
+     * @param listener  Listener which handled the event
+     * @param event     Event which was handled
+     * @param lagNanos  Time between the event being handed off and the listener starting, in nanoseconds
+     * @param runNanos  Time the listener took to handle the event, in nanoseconds
+     * @param failure   Exception thrown by the listener, or {@code null} if it completed normally
+     */
+    void onComplete(
+            @Nonnull Listener<?> listener,
+            @Nonnull Event event,
+            @Nonnegative long lagNanos,
+            @Nonnegative long runNanos,
+            @Nullable Throwable failure
+    );
+}
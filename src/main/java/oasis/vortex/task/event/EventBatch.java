@@ -0,0 +1,89 @@
+package oasis.vortex.task.event;
+
+import oasis.vortex.event.Event;
+import oasis.vortex.util.collection.list.BetterArrayList;
+import oasis.vortex.util.collection.list.BetterList;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+
+/**
+ * <h2>EventBatch</h2>
+ * <p>
+ * Stages events locally, then publishes them to an {@link EventTask} in one operation.
+ * Published events are queued as one contiguous chunk, which the event task dispatches in a tight loop.
+ * This avoids contending on the queue once per event when a producer calls many events at once.
+ * </p>
+ * <p>
+ * A batch can be reused after it has been published. Batches are not thread-safe,
+ * and are intended to be owned by a single producer.
+ * </p>
+ */
+public final class EventBatch {
+    /**
+     * Creates an empty batch. Use {@link EventTask#newBatch()} to create batches.
+     *
+     * @param task Task to publish to
+     */
+    EventBatch(@Nonnull EventTask task) {
+        this.task = task;
+        this.events = new BetterArrayList<>();
+    }
+
+    @Nonnull
+    private final EventTask task;
+    @Nonnull
+    private final BetterList<Event> events;
+
+    /**
+     * Stages an event. The event is not queued until this batch is published.
+     *
+     * @param event Event to stage
+     */
+    public void add(@Nonnull Event event) {
+        events.add(event);
+    }
+
+    /**
+     * Gets the number of staged events.
+     *
+     * @return Number of events
+     */
+    @Nonnegative
+    public int size() {
+        return events.size();
+    }
+
+    /**
+     * Checks if this batch has no staged events.
+     *
+     * @return {@code true} if empty
+     */
+    public boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    /**
+     * Discards every staged event.
+     */
+    public void clear() {
+        events.clear();
+    }
+
+    /**
+     * Queues every staged event in order, then clears this batch.
+     *
+     * @return Number of events queued
+     * @see EventTask#callEvents(BetterList)
+     */
+    @Nonnegative
+    public int publish() {
+        if (events.isEmpty()) return 0;
+
+        try {
+            return task.callEvents(events);
+        } finally {
+            events.clear();
+        }
+    }
+}
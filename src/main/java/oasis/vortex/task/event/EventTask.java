@@ -1,30 +1,180 @@
 package oasis.vortex.task.event;
 
 import oasis.vortex.event.Event;
+import oasis.vortex.event.PreemptiveEvent;
 import oasis.vortex.listener.Listener;
+import oasis.vortex.profiler.TickProfiler;
 import oasis.vortex.task.Task;
 import oasis.vortex.util.collection.list.BetterArrayList;
 import oasis.vortex.util.collection.list.BetterList;
+import oasis.vortex.util.collection.list.CopyOnWriteBetterList;
+import oasis.vortex.util.collection.queue.MpscQueue;
 import org.joda.time.Duration;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * <h2>EventTask</h2>
  * <p>Handles the calling and processing of {@link Event}s.</p>
+ * <p>
+ * Events are only dispatched to the listeners subscribed to their type.
+ * The matching listeners are resolved once per concrete event class, including listeners of
+ * its superclasses and interfaces, sorted by {@link Listener.Priority},
+ * and cached until a listener is registered or unregistered.
+ * Listeners can be registered and unregistered from any thread. The registry is copy-on-write,
+ * and the cache is tied to the snapshot of listeners it was resolved from, so dispatching never locks.
+ * </p>
+ * <p>
+ * Events can be called from any thread. They are queued in a lock-free {@link MpscQueue},
+ * and drained by the thread executing this task. Producers calling many events at once
+ * can stage them in an {@link EventBatch}, which is queued as one contiguous chunk.
+ * </p>
+ * <p>
+ * Successors of {@link PreemptiveEvent}s are dispatched inline, right after their predecessor,
+ * unless the predecessor has been cancelled. Chains are limited in depth, and cycles are cut off.
+ * </p>
+ * <p>
+ * Events for {@link Listener#isAsync() asynchronous} listeners are handed to a virtual-thread executor.
+ * The number of such events in flight is bounded. Once the bound is reached, the dispatching thread waits
+ * until an asynchronous listener completes. The executor is shut down by {@link EventTask#shutdownAsync()},
+ * which the {@link oasis.vortex.scheduler.event.EventScheduler} calls once it has stopped.
+ * </p>
  */
 public final class EventTask implements Task {
+    /**
+     * The default maximum number of successors run after an event in one chain.
+     */
+    public static final int DEFAULT_MAX_CHAIN_DEPTH = 16;
+
+    /**
+     * The default maximum number of events handed to asynchronous listeners which have not completed yet.
+     */
+    public static final int DEFAULT_MAX_ASYNC_IN_FLIGHT = 1024;
+
     //
     // Events
     //
 
     /**
      * Adds an event to the queue.
+     * This can be called from any thread.
      *
      * @param event Event to add
+     * @return {@code false} if the queue is full and rejected the event
+     */
+    public boolean callEvent(@Nonnull Event event) {
+        final BetterList<Event> capture = captures.get();
+        if (capture != null) return capture.add(event);
+
+        return events.offer(event);
+    }
+
+    /**
+     * Adds multiple events to the queue, in order.
+     * The events are queued with a single operation where the queue allows it.
+     *
+     * @param events Events to add
+     * @return Number of events queued
+     */
+    @Nonnegative
+    public int callEvents(@Nonnull BetterList<Event> events) {
+        final BetterList<Event> capture = captures.get();
+
+        if (capture != null) {
+            capture.addAll(events);
+            return events.size();
+        }
+
+        return this.events.offerAll(events);
+    }
+
+    /**
+     * Creates a new batch, which stages events and publishes them to this task in one operation.
+     *
+     * @return {@link EventBatch}
+     */
+    @Nonnull
+    public EventBatch newBatch() {
+        return new EventBatch(this);
+    }
+
+    /**
+     * Runs an action, and collects every event called on the current thread during the action
+     * instead of adding it to the queue. The collected events can be queued later with
+     * {@link EventTask#callEvents(BetterList)}, which allows callers to control their order.
+     *
+     * @param action Action to run
+     * @return Events called during the action, in order
      */
-    public void callEvent(@Nonnull Event event) {
-        events.add(event);
+    @Nonnull
+    public BetterList<Event> capture(@Nonnull Runnable action) {
+        final BetterList<Event> previous = captures.get();
+        final BetterList<Event> capture = new BetterArrayList<>();
+
+        captures.set(capture);
+        try {
+            action.run();
+        } finally {
+            if (previous != null) captures.set(previous);
+            else captures.remove();
+        }
+
+        return capture;
+    }
+
+    /**
+     * Gets the number of events waiting to be processed.
+     *
+     * @return Queue depth
+     */
+    @Nonnegative
+    public int getQueueDepth() {
+        return events.size();
+    }
+
+    /**
+     * Waits until an event has been queued, until the timeout elapses, or until the thread is unparked.
+     * The waiting thread is woken up as soon as an event is called, so this can be used
+     * to drain events with low latency without polling. This must only be called from
+     * the thread executing this task.
+     *
+     * @param timeoutNanos Maximum time to wait in nanoseconds
+     * @return {@code true} if there are queued events
+     */
+    public boolean awaitEvents(long timeoutNanos) {
+        return events.await(timeoutNanos);
+    }
+
+    /**
+     * Gets the total number of events dropped because the queue was full.
+     *
+     * @return Number of dropped events
+     */
+    @Nonnegative
+    public long getDroppedEventCount() {
+        return events.getDroppedCount();
+    }
+
+    /**
+     * Gets the total number of events rejected because the queue was full.
+     *
+     * @return Number of rejected events
+     */
+    @Nonnegative
+    public long getRejectedEventCount() {
+        return events.getRejectedCount();
     }
 
     //
@@ -73,24 +223,427 @@ public final class EventTask implements Task {
 
     @Override
     public void execute(@Nonnull Duration delta) {
-        while (events.size() != 0) {
-            final Event first = events.get(0);
-            listeners.forEach(l -> l.handleEvent(first));
-            events.remove(0);
+        final TickProfiler profiler = this.profiler;
+
+        if (profiler == null || !profiler.isEnabled()) {
+            events.drain(this::dispatchChain);
+            return;
         }
+
+        final long start = System.nanoTime();
+        events.drain(e -> dispatchChain(e, profiler));
+        profiler.recordPhase(TickProfiler.Phase.EVENTS, System.nanoTime() - start);
     }
 
-    private final BetterList<Listener<?>> listeners;
-    private final BetterList<Event> events;
+    /**
+     * Gets the profiler of this task.
+     *
+     * @return Profiler, or {@code null} if this task is not profiled
+     */
+    @Nullable
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
 
+    /**
+     * Sets the profiler of this task.
+     * Timings of each drain and each listener are recorded while the profiler is enabled.
+     *
+     * @param profiler Profiler, or {@code null} to disable profiling
+     */
+    public void setProfiler(@Nullable TickProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Gets the maximum number of successors run after an event in one chain.
+     *
+     * @return Maximum chain depth
+     */
+    @Nonnegative
+    public int getMaxChainDepth() {
+        return maxChainDepth;
+    }
+
+    /**
+     * Sets the maximum number of successors run after an event in one chain.
+     * Chains exceeding this depth are truncated, and counted in {@link EventTask#getTruncatedChainCount()}.
+     *
+     * @param maxChainDepth Maximum chain depth
+     * @throws IllegalArgumentException When the depth is negative
+     */
+    public void setMaxChainDepth(@Nonnegative int maxChainDepth) throws IllegalArgumentException {
+        if (maxChainDepth < 0) throw new IllegalArgumentException();
+        this.maxChainDepth = maxChainDepth;
+    }
+
+    /**
+     * Gets the total number of event chains which were cut short,
+     * either because they exceeded the maximum depth or because they contained a cycle.
+     *
+     * @return Number of truncated chains
+     */
+    @Nonnegative
+    public long getTruncatedChainCount() {
+        return truncatedChains.sum();
+    }
+
+    private void dispatchChain(@Nonnull Event event) {
+        dispatchChain(event, null);
+    }
+
+    /**
+     * Dispatches an event, then runs its chain of successors inline.
+     * <p>
+     * A {@link PreemptiveEvent} which has been cancelled is not delivered.
+     * The successor of a preemptive event is only dispatched if the event was not cancelled
+     * by any of its listeners. Successors are dispatched immediately, without being queued,
+     * so a whole chain completes within one drain.
+     * </p>
+     *
+     * @param event    Event to dispatch
+     * @param profiler Profiler to record to, or {@code null} to skip profiling
+     */
+    private void dispatchChain(@Nonnull Event event, @Nullable TickProfiler profiler) {
+        Event current = event;
+        int depth = 0;
+
+        while (true) {
+            if (current instanceof PreemptiveEvent p && p.isCancelled()) return;
+
+            dispatch(current, profiler);
+
+            if (!(current instanceof PreemptiveEvent p) || p.isCancelled()) return;
+
+            final Event successor = p.getSuccessor();
+            if (successor == null) return;
+
+            if (depth == maxChainDepth || isInChain(event, successor, depth)) {
+                truncatedChains.increment();
+                return;
+            }
+
+            current = successor;
+            depth++;
+        }
+    }
+
+    /**
+     * Checks if an event has already been dispatched within the current chain.
+     * Chains are bounded by the maximum depth, so the chain is walked again instead of tracking visited events.
+     *
+     * @param head      First event of the chain
+     * @param candidate Event to check
+     * @param depth     Depth of the last dispatched event
+     * @return {@code true} if the candidate is part of the chain up to given depth
+     */
+    private static boolean isInChain(@Nonnull Event head, @Nonnull Event candidate, int depth) {
+        Event current = head;
+
+        for (int i = 0; i <= depth && current != null; i++) {
+            if (current == candidate) return true;
+            current = current instanceof PreemptiveEvent p ? p.getSuccessor() : null;
+        }
+
+        return false;
+    }
+
+    /**
+     * Dispatches an event to every listener subscribed to its type, in order of priority.
+     * Once a {@link PreemptiveEvent} has been cancelled, the remaining listeners are skipped,
+     * except for {@link Listener.Priority#MONITOR} listeners.
+     *
+     * @param event    Event to dispatch
+     * @param profiler Profiler to record to, or {@code null} to skip profiling
+     */
+    @SuppressWarnings("unchecked")
+    private void dispatch(@Nonnull Event event, @Nullable TickProfiler profiler) {
+        final DispatchEntry entry = resolveEntry(event.getClass());
+        final Listener<?>[] targets = entry.listeners();
+        final boolean[] async = entry.async();
+        final PreemptiveEvent preemptive = event instanceof PreemptiveEvent p ? p : null;
+
+        int i = 0;
+        while (i < targets.length) {
+            final Listener<?> listener = targets[i];
+
+            if (async[i]) {
+                dispatchAsync(listener, event, profiler);
+            } else if (profiler == null) {
+                ((Listener<Event>) listener).handle(event);
+            } else {
+                final long start = System.nanoTime();
+                ((Listener<Event>) listener).handle(event);
+                profiler.recordListener(listener, System.nanoTime() - start);
+            }
+
+            i++;
+
+            // Skip straight to the monitors once the event has been cancelled
+            if (preemptive != null && i < entry.monitorIndex() && preemptive.isCancelled()) i = entry.monitorIndex();
+        }
+    }
+
+    /**
+     * Hands an event to an asynchronous listener, waiting for a free in-flight permit if necessary.
+     *
+     * @param listener Asynchronous listener
+     * @param event    Event to handle
+     * @param profiler Profiler to record to, or {@code null} to skip profiling
+     */
+    @SuppressWarnings("unchecked")
+    private void dispatchAsync(@Nonnull Listener<?> listener, @Nonnull Event event, @Nullable TickProfiler profiler) {
+        final Semaphore permits = asyncPermits;
+        permits.acquireUninterruptibly();
+
+        final long submitted = System.nanoTime();
+
+        try {
+            submitAsync(() -> {
+                final long start = System.nanoTime();
+                Throwable failure = null;
+
+                try {
+                    ((Listener<Event>) listener).handle(event);
+                } catch (Throwable t) {
+                    failure = t;
+                } finally {
+                    permits.release();
+                }
+
+                final long end = System.nanoTime();
+                if (profiler != null) profiler.recordListener(listener, end - start);
+
+                final AsyncCompletionCallback callback = asyncCallback;
+                if (callback != null) callback.onComplete(listener, event, start - submitted, end - start, failure);
+                else if (failure != null) Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), failure);
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Submits an action to the asynchronous executor, starting a new executor if it has been shut down.
+     *
+     * @param action Action to run
+     */
+    private void submitAsync(@Nonnull Runnable action) {
+        while (true) {
+            final ExecutorService executor = getAsyncExecutor();
+
+            try {
+                executor.execute(action);
+                return;
+            } catch (RejectedExecutionException e) {
+                // Shut down concurrently; retry on a new executor
+                if (!executor.isShutdown()) throw e;
+            }
+        }
+    }
+
+    @Nonnull
+    private ExecutorService getAsyncExecutor() {
+        final ExecutorService executor = asyncExecutor;
+        if (executor != null) return executor;
+
+        synchronized (this) {
+            if (asyncExecutor == null) asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+            return asyncExecutor;
+        }
+    }
+
+    /**
+     * Shuts down the executor of asynchronous listeners.
+     * Events already handed to asynchronous listeners are still handled, but no new threads are accepted.
+     * If an event is dispatched to an asynchronous listener afterwards, a new executor is started,
+     * so this task can be executed again once its scheduler has been restarted.
+     */
+    public synchronized void shutdownAsync() {
+        final ExecutorService executor = asyncExecutor;
+        if (executor == null) return;
+
+        asyncExecutor = null;
+        executor.shutdown();
+    }
+
+    /**
+     * Gets the maximum number of events handed to asynchronous listeners which have not completed yet.
+     *
+     * @return Maximum number of in-flight events
+     */
+    @Positive
+    public int getMaxAsyncInFlight() {
+        return maxAsyncInFlight;
+    }
+
+    /**
+     * Sets the maximum number of events handed to asynchronous listeners which have not completed yet.
+     * Events already in flight are not affected.
+     *
+     * @param maxAsyncInFlight Maximum number of in-flight events
+     * @throws IllegalArgumentException When the maximum is not positive
+     */
+    public void setMaxAsyncInFlight(@Positive int maxAsyncInFlight) throws IllegalArgumentException {
+        if (maxAsyncInFlight <= 0) throw new IllegalArgumentException();
+
+        this.maxAsyncInFlight = maxAsyncInFlight;
+        this.asyncPermits = new Semaphore(maxAsyncInFlight);
+    }
+
+    /**
+     * Gets the number of events currently being handled by asynchronous listeners.
+     *
+     * @return Number of in-flight events
+     */
+    @Nonnegative
+    public int getAsyncInFlight() {
+        final Semaphore permits = asyncPermits;
+        return Math.max(maxAsyncInFlight - permits.availablePermits(), 0);
+    }
+
+    /**
+     * Sets the callback notified whenever an asynchronous listener has finished handling an event.
+     * Without a callback, exceptions thrown by asynchronous listeners are passed to the uncaught exception handler.
+     *
+     * @param callback Callback, or {@code null} to remove it
+     */
+    public void setAsyncCallback(@Nullable AsyncCompletionCallback callback) {
+        this.asyncCallback = callback;
+    }
+
+    /**
+     * Gets the dispatch entry of an event class, resolving it if it has not been cached yet.
+     * The cache is discarded whenever the snapshot of registered listeners has changed.
+     *
+     * @param eventClass Concrete class of event
+     * @return Dispatch entry of the event class
+     */
+    @Nonnull
+    private DispatchEntry resolveEntry(@Nonnull Class<?> eventClass) {
+        final Listener<?>[] source = listeners.array();
+        DispatchTable table = dispatchTable;
+
+        if (table.source() != source) {
+            table = new DispatchTable(source, new ConcurrentHashMap<>());
+            dispatchTable = table;
+        }
+
+        DispatchEntry entry = table.entries().get(eventClass);
+
+        if (entry == null) {
+            entry = resolveListeners(source, eventClass);
+            table.entries().put(eventClass, entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Resolves the listeners which should receive events of given class.
+     * Listeners are sorted by priority, then by registration order.
+     *
+     * @param source     Registered listeners
+     * @param eventClass Concrete class of event
+     * @return Dispatch entry of the event class
+     */
+    @Nonnull
+    private DispatchEntry resolveListeners(@Nonnull Listener<?>[] source, @Nonnull Class<?> eventClass) {
+        final Listener<?>[] targets = Arrays.stream(source)
+                .filter(l -> l.getEventClass().isAssignableFrom(eventClass))
+                .sorted(Comparator.comparing(Listener::getPriority))
+                .toArray(Listener<?>[]::new);
+
+        final boolean[] async = new boolean[targets.length];
+        for (int i = 0; i < targets.length; i++) async[i] = targets[i].isAsync();
+
+        int monitorIndex = targets.length;
+        while (monitorIndex > 0 && targets[monitorIndex - 1].getPriority() == Listener.Priority.MONITOR) monitorIndex--;
+
+        return new DispatchEntry(targets, async, monitorIndex);
+    }
+
+    /**
+     * The precomputed listeners of one event class.
+     *
+     * @param listeners    Listeners in dispatch order
+     * @param async        Whether the listener at each index is asynchronous
+     * @param monitorIndex Index of the first {@link Listener.Priority#MONITOR} listener
+     */
+    private record DispatchEntry(
+            @Nonnull Listener<?>[] listeners,
+            @Nonnull boolean[] async,
+            @Nonnegative int monitorIndex
+    ) {}
+
+    /**
+     * The dispatch entries resolved from one snapshot of registered listeners.
+     *
+     * @param source  Snapshot of registered listeners
+     * @param entries Dispatch entries by concrete event class
+     */
+    private record DispatchTable(
+            @Nonnull Listener<?>[] source,
+            @Nonnull Map<Class<?>, DispatchEntry> entries
+    ) {}
+
+    private final CopyOnWriteBetterList<Listener<?>> listeners;
+    private final MpscQueue<Event> events;
+    private volatile DispatchTable dispatchTable;
+    private final ThreadLocal<BetterList<Event>> captures = new ThreadLocal<>();
+    @Nullable
+    private volatile TickProfiler profiler;
+    private volatile int maxChainDepth = DEFAULT_MAX_CHAIN_DEPTH;
+    private final LongAdder truncatedChains = new LongAdder();
+    @Nullable
+    private volatile ExecutorService asyncExecutor;
+    private volatile int maxAsyncInFlight = DEFAULT_MAX_ASYNC_IN_FLIGHT;
+    private volatile Semaphore asyncPermits = new Semaphore(DEFAULT_MAX_ASYNC_IN_FLIGHT);
+    @Nullable
+    private volatile AsyncCompletionCallback asyncCallback;
+
+    /**
+     * Creates an event task with an unbounded queue.
+     */
     public EventTask() {
-        this.listeners = new BetterArrayList<>();
-        this.events = new BetterArrayList<>();
+        this(new BetterArrayList<>());
     }
 
+    /**
+     * Creates an event task with an unbounded queue.
+     *
+     * @param listeners Listeners to register
+     */
     public EventTask(@Nonnull BetterList<Listener<?>> listeners) {
-        this.listeners = listeners;
-        this.events = new BetterArrayList<>();
+        this(listeners, MpscQueue.UNBOUNDED, MpscQueue.BackpressurePolicy.REJECT);
+    }
+
+    /**
+     * Creates an event task with a bounded queue.
+     *
+     * @param capacity Maximum number of queued events
+     * @param policy   Policy to apply when the queue is full
+     */
+    public EventTask(@Positive int capacity, @Nonnull MpscQueue.BackpressurePolicy policy) {
+        this(new BetterArrayList<>(), capacity, policy);
+    }
+
+    /**
+     * Creates an event task with a bounded queue.
+     *
+     * @param listeners Listeners to register
+     * @param capacity  Maximum number of queued events
+     * @param policy    Policy to apply when the queue is full
+     */
+    public EventTask(
+            @Nonnull BetterList<Listener<?>> listeners,
+            @Positive int capacity,
+            @Nonnull MpscQueue.BackpressurePolicy policy
+    ) {
+        this.listeners = new CopyOnWriteBetterList<>(Listener<?>[]::new, listeners);
+        this.events = new MpscQueue<>(capacity, policy);
+        this.dispatchTable = new DispatchTable(this.listeners.array(), new ConcurrentHashMap<>());
     }
 
 }
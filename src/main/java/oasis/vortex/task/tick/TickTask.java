@@ -1,13 +1,16 @@
 package oasis.vortex.task.tick;
 
 import oasis.vortex.Vortex;
+import oasis.vortex.profiler.TickProfiler;
 import oasis.vortex.task.Task;
+import oasis.vortex.task.event.EventTask;
+import oasis.vortex.task.timer.TimingWheel;
 import oasis.vortex.tickable.Tickable;
-import oasis.vortex.util.collection.list.BetterArrayList;
-import oasis.vortex.util.collection.list.BetterList;
+import oasis.vortex.util.collection.list.CopyOnWriteBetterList;
 import org.joda.time.Duration;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 /**
  * <h2>TickTask</h2>
@@ -18,20 +21,125 @@ import javax.annotation.Nonnull;
  * </p>
  * <p>
  * Outside tickables require registration.
+ * Tickables can be registered and unregistered from any thread, and take effect from the next tick.
+ * </p>
+ * <p>
+ * Tasks scheduled on the {@link TimingWheel} of this task run on the tick thread,
+ * after the tickables of the tick they expire in.
+ * </p>
+ * <p>
+ * Optionally, an {@link EventTask} can be drained at the end of every tick,
+ * which dispatches the events of a tick before the next one starts.
  * </p>
  */
 public final class TickTask implements Task {
     public TickTask() {
-        this.tickables = new BetterArrayList<>();
+        this.tickables = new CopyOnWriteBetterList<>(Tickable[]::new);
+        this.timers = new TimingWheel();
     }
 
     @Override
     public void execute(@Nonnull Duration delta) {
+        final TickProfiler profiler = this.profiler;
+
+        if (profiler != null && profiler.isEnabled()) {
+            executeProfiled(delta, profiler);
+            return;
+        }
+
         // Tick the game state
         Vortex.getState().tick(delta);
 
         // Tick registered tickables
-        for (Tickable tickable : tickables) tickable.tick(delta);
+        for (Tickable tickable : tickables.array()) tickable.tick(delta);
+
+        // Run expired timers
+        timers.execute(delta);
+
+        // Drain events called during this tick
+        final EventTask eventTask = this.eventTask;
+        if (eventTask != null) eventTask.execute(delta);
+    }
+
+    private void executeProfiled(@Nonnull Duration delta, @Nonnull TickProfiler profiler) {
+        final long start = System.nanoTime();
+
+        Vortex.getState().tick(delta);
+
+        final long stateEnd = System.nanoTime();
+        profiler.recordPhase(TickProfiler.Phase.STATE, stateEnd - start);
+
+        long previous = stateEnd;
+
+        for (Tickable tickable : tickables.array()) {
+            tickable.tick(delta);
+
+            final long now = System.nanoTime();
+            profiler.recordTickable(tickable, now - previous);
+            previous = now;
+        }
+
+        profiler.recordPhase(TickProfiler.Phase.TICKABLES, previous - stateEnd);
+
+        timers.execute(delta);
+
+        final EventTask eventTask = this.eventTask;
+        if (eventTask != null) eventTask.execute(delta);
+
+        profiler.recordPhase(TickProfiler.Phase.TICK, System.nanoTime() - start);
+    }
+
+    /**
+     * Gets the timing wheel of this task.
+     * Tasks scheduled on it run on the tick thread, once after a delay or repeatedly with their own period.
+     *
+     * @return {@link TimingWheel}
+     */
+    @Nonnull
+    public TimingWheel getTimers() {
+        return timers;
+    }
+
+    /**
+     * Gets the event task drained at the end of every tick.
+     *
+     * @return Event task, or {@code null} if events are not drained by this task
+     */
+    @Nullable
+    public EventTask getEventTask() {
+        return eventTask;
+    }
+
+    /**
+     * Sets an event task to drain synchronously at the end of every tick.
+     * Events called during a tick are then dispatched before the next tick starts.
+     * An event task must only be drained by one thread, so it must not be registered
+     * to a scheduler while it is drained by this task.
+     *
+     * @param eventTask Event task to drain, or {@code null} to stop draining
+     */
+    public void setEventTask(@Nullable EventTask eventTask) {
+        this.eventTask = eventTask;
+    }
+
+    /**
+     * Gets the profiler of this task.
+     *
+     * @return Profiler, or {@code null} if this task is not profiled
+     */
+    @Nullable
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Sets the profiler of this task.
+     * Timings of the state tick, each tickable and the whole tick are recorded while the profiler is enabled.
+     *
+     * @param profiler Profiler, or {@code null} to disable profiling
+     */
+    public void setProfiler(@Nullable TickProfiler profiler) {
+        this.profiler = profiler;
     }
 
     /**
@@ -53,6 +161,12 @@ public final class TickTask implements Task {
     }
 
     @Nonnull
-    private final BetterList<Tickable> tickables;
+    private final CopyOnWriteBetterList<Tickable> tickables;
+    @Nonnull
+    private final TimingWheel timers;
+    @Nullable
+    private volatile TickProfiler profiler;
+    @Nullable
+    private volatile EventTask eventTask;
 
 }
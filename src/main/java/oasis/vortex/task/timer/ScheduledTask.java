@@ -0,0 +1,110 @@
+package oasis.vortex.task.timer;
+
+import oasis.vortex.task.Task;
+import org.joda.time.Duration;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <h2>ScheduledTask</h2>
+ * <p>
+ * A handle to a task scheduled on a {@link TimingWheel}.
+ * The handle can be used to cancel the task, or to check whether it has already run.
+ * </p>
+ */
+public final class ScheduledTask {
+    ScheduledTask(@Nonnull TimingWheel wheel, @Nonnull Task task, long delay, long period) {
+        this.wheel = wheel;
+        this.task = task;
+        this.delay = delay;
+        this.period = period;
+        this.state = new AtomicInteger(PENDING);
+    }
+
+    /**
+     * Cancels this task. A cancelled task will not run again.
+     * This can be called from any thread, including from within the task itself.
+     *
+     * @return {@code false} if this task has already been cancelled, or has already run
+     */
+    public boolean cancel() {
+        if (!state.compareAndSet(PENDING, CANCELLED)) return false;
+
+        wheel.onCancel(this);
+        return true;
+    }
+
+    /**
+     * Checks if this task has been cancelled.
+     *
+     * @return {@code true} if this task has been cancelled
+     */
+    public boolean isCancelled() {
+        return state.get() == CANCELLED;
+    }
+
+    /**
+     * Checks if this task will no longer run, either because it has been cancelled,
+     * or because it was a one-shot task which has already run.
+     *
+     * @return {@code true} if this task is done
+     */
+    public boolean isDone() {
+        return state.get() != PENDING;
+    }
+
+    /**
+     * Checks if this task repeats until it is cancelled.
+     *
+     * @return {@code true} if this task is repeating
+     */
+    public boolean isRepeating() {
+        return period > 0;
+    }
+
+    /**
+     * Gets the scheduled task.
+     *
+     * @return Task
+     */
+    @Nonnull
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Gets the period of this task.
+     *
+     * @return Period, or {@code null} if this is a one-shot task
+     */
+    @Nullable
+    public Duration getPeriod() {
+        return period > 0 ? wheel.toDuration(period) : null;
+    }
+
+    static final int PENDING = 0;
+    static final int CANCELLED = 1;
+    static final int DONE = 2;
+
+    @Nonnull
+    private final TimingWheel wheel;
+    @Nonnull
+    final Task task;
+    final long delay;
+    final long period;
+    @Nonnull
+    final AtomicInteger state;
+
+    // The following fields are only accessed by the thread advancing the wheel
+
+    long origin;
+    long deadline;
+    @Nullable
+    TimingWheel.Bucket bucket;
+    @Nullable
+    ScheduledTask prev;
+    @Nullable
+    ScheduledTask next;
+}
@@ -0,0 +1,315 @@
+package oasis.vortex.task.timer;
+
+import oasis.vortex.task.Task;
+import oasis.vortex.util.collection.queue.MpscQueue;
+import org.joda.time.Duration;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * <h2>TimingWheel</h2>
+ * <p>
+ * A hierarchical timing wheel, which runs tasks once after a delay, or repeatedly with their own period.
+ * </p>
+ * <p>
+ * Time is divided into wheel ticks of a fixed resolution. The wheel has {@value LEVELS} levels of
+ * {@value WHEEL_SIZE} slots, each level covering {@value WHEEL_SIZE} times the span of the level below.
+ * A task is linked into the slot of the lowest level which covers its deadline, and moves down one level
+ * whenever the level below completes a rotation. Scheduling, cancelling and expiring a task are therefore
+ * constant-time, regardless of how many tasks are scheduled.
+ * </p>
+ * <p>
+ * The wheel is advanced by executing it as a {@link Task}, so scheduled tasks run on the thread executing the wheel.
+ * Tasks can be scheduled and cancelled from any thread. They are handed over to the executing thread,
+ * and are linked into the wheel before its next tick.
+ * </p>
+ */
+public final class TimingWheel implements Task {
+    /**
+     * The default resolution of a wheel tick.
+     */
+    @Nonnull
+    public static final Duration DEFAULT_RESOLUTION = new Duration(1);
+
+    /**
+     * Creates a timing wheel with the default resolution.
+     */
+    public TimingWheel() {
+        this(DEFAULT_RESOLUTION);
+    }
+
+    /**
+     * Creates a new timing wheel.
+     * Delays and periods are rounded up to the resolution.
+     *
+     * @param resolution Duration of a wheel tick
+     * @throws IllegalArgumentException When the resolution is not positive
+     */
+    public TimingWheel(@Nonnull Duration resolution) throws IllegalArgumentException {
+        if (resolution.getMillis() <= 0) throw new IllegalArgumentException();
+
+        this.resolution = resolution.getMillis();
+        this.wheels = new Bucket[LEVELS][WHEEL_SIZE];
+        this.scheduled = new MpscQueue<>();
+        this.cancelled = new MpscQueue<>();
+
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < WHEEL_SIZE; i++) wheel[i] = new Bucket();
+        }
+    }
+
+    //
+    // Scheduling
+    //
+
+    /**
+     * Schedules a task to run once after the given delay.
+     * The task is given the delay as its delta.
+     *
+     * @param task  Task to run
+     * @param delay Delay before the task runs
+     * @return Handle to the scheduled task
+     * @throws IllegalArgumentException When the delay is negative
+     */
+    @Nonnull
+    public ScheduledTask schedule(@Nonnull Task task, @Nonnull Duration delay) throws IllegalArgumentException {
+        if (delay.getMillis() < 0) throw new IllegalArgumentException();
+        return submit(new ScheduledTask(this, task, toTicks(delay), 0));
+    }
+
+    /**
+     * Schedules a task to run repeatedly, until it is cancelled.
+     * The task first runs after the initial delay, then once every period.
+     * The task is given the time elapsed since its previous run as its delta.
+     *
+     * @param task         Task to run
+     * @param initialDelay Delay before the first run
+     * @param period       Period between runs
+     * @return Handle to the scheduled task
+     * @throws IllegalArgumentException When the initial delay is negative, or the period is not positive
+     */
+    @Nonnull
+    public ScheduledTask scheduleRepeating(
+            @Nonnull Task task,
+            @Nonnull Duration initialDelay,
+            @Nonnull Duration period
+    ) throws IllegalArgumentException {
+        if (initialDelay.getMillis() < 0 || period.getMillis() <= 0) throw new IllegalArgumentException();
+        return submit(new ScheduledTask(this, task, toTicks(initialDelay), toTicks(period)));
+    }
+
+    @Nonnull
+    private ScheduledTask submit(@Nonnull ScheduledTask task) {
+        scheduled.offer(task);
+        return task;
+    }
+
+    void onCancel(@Nonnull ScheduledTask task) {
+        cancelled.offer(task);
+    }
+
+    //
+    // Execution
+    //
+
+    /**
+     * Advances this wheel by the given delta, running every task which expires on the way.
+     * This must only be called from one thread at a time.
+     *
+     * @param delta Time elapsed since the last call
+     */
+    @Override
+    public void execute(@Nonnull Duration delta) {
+        remainder += delta.getMillis();
+
+        while (remainder >= resolution) {
+            remainder -= resolution;
+            advance();
+        }
+    }
+
+    private void advance() {
+        scheduled.drain(this::link);
+        cancelled.drain(this::unlink);
+
+        current++;
+
+        // Move tasks down from every level whose lower level has completed a rotation
+        for (int level = 1; level < LEVELS; level++) {
+            final int shift = level * WHEEL_BITS;
+            if ((current & ((1L << shift) - 1)) != 0) break;
+
+            cascade(wheels[level][(int) ((current >>> shift) & WHEEL_MASK)]);
+        }
+
+        expire(wheels[0][(int) (current & WHEEL_MASK)]);
+    }
+
+    private void link(@Nonnull ScheduledTask task) {
+        if (task.state.get() != ScheduledTask.PENDING) return;
+
+        task.origin = current;
+        task.deadline = current + task.delay;
+        insert(task);
+    }
+
+    private void insert(@Nonnull ScheduledTask task) {
+        final long delta = Math.max(task.deadline - current, 0);
+        final long deadline = current + Math.min(delta, MAX_SPAN - 1);
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << ((level + 1) * WHEEL_BITS)) level++;
+
+        final Bucket bucket = wheels[level][(int) ((deadline >>> (level * WHEEL_BITS)) & WHEEL_MASK)];
+
+        task.bucket = bucket;
+        task.prev = null;
+        task.next = bucket.head;
+        if (bucket.head != null) bucket.head.prev = task;
+        bucket.head = task;
+
+        size++;
+    }
+
+    private void unlink(@Nonnull ScheduledTask task) {
+        final Bucket bucket = task.bucket;
+        if (bucket == null) return;
+
+        if (task.prev != null) task.prev.next = task.next;
+        else bucket.head = task.next;
+
+        if (task.next != null) task.next.prev = task.prev;
+
+        task.bucket = null;
+        task.prev = null;
+        task.next = null;
+
+        size--;
+    }
+
+    private void cascade(@Nonnull Bucket bucket) {
+        ScheduledTask task = bucket.detach();
+
+        while (task != null) {
+            final ScheduledTask next = task.next;
+            release(task);
+
+            if (task.state.get() == ScheduledTask.PENDING) insert(task);
+            task = next;
+        }
+    }
+
+    private void expire(@Nonnull Bucket bucket) {
+        ScheduledTask task = bucket.detach();
+
+        while (task != null) {
+            final ScheduledTask next = task.next;
+            release(task);
+
+            if (task.deadline > current) insert(task);
+            else run(task);
+
+            task = next;
+        }
+    }
+
+    private void release(@Nonnull ScheduledTask task) {
+        task.bucket = null;
+        task.prev = null;
+        task.next = null;
+
+        size--;
+    }
+
+    private void run(@Nonnull ScheduledTask task) {
+        if (task.state.get() != ScheduledTask.PENDING) return;
+
+        try {
+            task.task.execute(toDuration(current - task.origin));
+        } catch (Throwable t) {
+            final Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, t);
+        }
+
+        if (task.period <= 0) {
+            task.state.compareAndSet(ScheduledTask.PENDING, ScheduledTask.DONE);
+            return;
+        }
+
+        task.origin = current;
+
+        if (task.state.get() == ScheduledTask.PENDING) {
+            task.deadline = current + task.period;
+            insert(task);
+        }
+    }
+
+    //
+    // Metrics
+    //
+
+    /**
+     * Gets the number of tasks currently scheduled on this wheel.
+     *
+     * @return Number of scheduled tasks
+     */
+    @Nonnegative
+    public int size() {
+        return size + scheduled.size();
+    }
+
+    /**
+     * Gets the duration of a wheel tick.
+     *
+     * @return Resolution
+     */
+    @Nonnull
+    public Duration getResolution() {
+        return new Duration(resolution);
+    }
+
+    @Nonnull
+    Duration toDuration(long ticks) {
+        return new Duration(ticks * resolution);
+    }
+
+    private long toTicks(@Nonnull Duration duration) {
+        return Math.max((duration.getMillis() + resolution - 1) / resolution, 1);
+    }
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_SPAN = 1L << (LEVELS * WHEEL_BITS);
+
+    private final long resolution;
+    @Nonnull
+    private final Bucket[][] wheels;
+    @Nonnull
+    private final MpscQueue<ScheduledTask> scheduled;
+    @Nonnull
+    private final MpscQueue<ScheduledTask> cancelled;
+
+    // Only accessed by the thread advancing the wheel, apart from the size
+    private long current = 0;
+    private long remainder = 0;
+    private volatile int size = 0;
+
+    /**
+     * A slot of the wheel, holding a doubly-linked list of tasks.
+     */
+    static final class Bucket {
+        @Nullable
+        private ScheduledTask head;
+
+        @Nullable
+        private ScheduledTask detach() {
+            final ScheduledTask first = head;
+            head = null;
+            return first;
+        }
+    }
+}
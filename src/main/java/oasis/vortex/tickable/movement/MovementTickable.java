@@ -1,8 +1,8 @@
 package oasis.vortex.tickable.movement;
 
 import oasis.vortex.Vortex;
-import oasis.vortex.object.ImmovableObject;
 import oasis.vortex.tickable.Tickable;
+import oasis.vortex.world.World;
 import org.joda.time.Duration;
 
 import javax.annotation.Nonnull;
@@ -10,16 +10,20 @@ import javax.annotation.Nonnull;
 /**
  * <h2>MovementTickable</h2>
  * <p>Handles the movement of objects.</p>
+ * <p>
+ * Objects are moved by integrating the {@link oasis.vortex.world.physics.PhysicsStore} of each world,
+ * which does not allocate any locations or vectors.
+ * </p>
  */
 public final class MovementTickable implements Tickable {
     @Override
     public void tick(@Nonnull Duration delta) {
-        Vortex.getState().getWorlds().forEach(w -> w.getObjects().forEach(o -> {
-            o.setLocation(o.getLocation().plusVector(o.getVector().modifyAll(1.0 / 1000 * delta.getMillis())));
+        final double seconds = 1.0 / 1000 * delta.getMillis();
 
-            if (!(o instanceof ImmovableObject)) {
-                System.out.println("Object's location: " + o.getLocation().x() + ", " + o.getLocation().y() + ", " + o.getLocation().z());
+        for (World w : Vortex.getState().getWorldArray()) {
+            synchronized (w) {
+                w.getPhysicsStore().integrate(seconds);
             }
-        }));
+        }
     }
 }
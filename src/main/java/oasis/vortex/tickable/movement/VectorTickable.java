@@ -1,46 +1,105 @@
 package oasis.vortex.tickable.movement;
 
 import oasis.vortex.Vortex;
-import oasis.vortex.object.ImmovableObject;
+import oasis.vortex.object.Object;
 import oasis.vortex.tickable.Tickable;
-import oasis.vortex.util.collection.set.BetterSet;
-import oasis.vortex.util.physics.TriLocation;
+import oasis.vortex.util.physics.Volume;
+import oasis.vortex.world.World;
+import oasis.vortex.world.physics.PhysicsStore;
 import org.joda.time.Duration;
 
 import javax.annotation.Nonnull;
 
+/**
+ * <h2>VectorTickable</h2>
+ * <p>Handles the acceleration of objects from gravity, and their terminal velocity.</p>
+ * <p>
+ * Velocities are read from and written to the {@link PhysicsStore} of each world directly.
+ * Objects resting on an {@link oasis.vortex.object.ImmovableObject} are tested against the immovable slots
+ * tracked by the store, so the loop does not allocate.
+ * </p>
+ */
 public final class VectorTickable implements Tickable {
     @Override
     public void tick(@Nonnull Duration delta) {
-        Vortex.getState().getWorlds().forEach(w -> w.getObjects().forEach(o -> {
-            if (o.obeysPhysics()) {
-                // Handle gravity
-                final double accelerationFromGravity = w.getGravity() / 1000 * delta.getMillis();
-                o.setVector(o.getVector().plusY(-accelerationFromGravity));
-
-                // Terminal velocity
-                final double crossSection = o.getVolume().getCrossSectionXZ();
-                final double fluidDensity = w.getAirDensity();
-                final double gravity = w.getGravity();
-
-                final double terminalVelocity = Math.sqrt(
-                        (2 * o.getMass().valueKilograms() * gravity) /
-                                (fluidDensity * crossSection * o.getDragCoefficient())
-                );
-
-                BetterSet<ImmovableObject> immovableObjects = w.getObjects().filter(ImmovableObject.class);
-                for (ImmovableObject im : immovableObjects) {
-                    final TriLocation tl = im.getTriLocation().toBuilder().volume(im.getVolume().setY(im.getVolume().y() + 0.5)).build();
-                    // This is a bodged solution for debugging. Please re-implement this. (note to future self)
-                    if (tl.overlaps(o.getTriLocation())) {
-                        o.setVector(o.getVector().plusY(accelerationFromGravity)); // Cancel gravity if object is on top of an immovable object.
-                    }
-                }
-                if (o.getVector().getVelocity() > terminalVelocity) {
-                    double modifier = terminalVelocity / o.getVector().getVelocity();
-                    o.setVector(o.getVector().modifyAll(modifier));
-                }
+        for (World w : Vortex.getState().getWorldArray()) {
+            synchronized (w) {
+                tick(w, delta);
             }
-        }));
+        }
     }
+
+    private void tick(@Nonnull World w, @Nonnull Duration delta) {
+        final PhysicsStore store = w.getPhysicsStore();
+        final double gravity = w.getGravity();
+        final double fluidDensity = w.getAirDensity();
+        final double accelerationFromGravity = gravity / 1000 * delta.getMillis();
+
+        store.pull();
+
+        for (int slot = 0; slot < store.getSlotCount(); slot++) {
+            final Object o = store.getObject(slot);
+            if (o == null || !o.obeysPhysics()) continue;
+
+            final double vx = store.getVelocityX(slot);
+            final double vz = store.getVelocityZ(slot);
+
+            // Handle gravity
+            double vy = store.getVelocityY(slot) - accelerationFromGravity;
+
+            // Terminal velocity
+            final double crossSection = o.getVolume().getCrossSectionXZ();
+
+            final double terminalVelocity = Math.sqrt(
+                    (2 * o.getMass().valueKilograms() * gravity) /
+                            (fluidDensity * crossSection * o.getDragCoefficient())
+            );
+
+            // Cancel gravity if the object is supported by an immovable object
+            if (isSupported(store, slot, o.getVolume())) vy += accelerationFromGravity;
+
+            final double velocity = Math.sqrt(vx * vx + vy * vy + vz * vz);
+            if (velocity > terminalVelocity) {
+                final double modifier = terminalVelocity / velocity;
+                store.setVelocity(slot, vx * modifier, vy * modifier, vz * modifier);
+            } else {
+                store.setVelocity(slot, vx, vy, vz);
+            }
+        }
+
+        store.push();
+    }
+
+    /**
+     * Checks if an object overlaps any immovable object of the store, once the height of the immovable object
+     * has been extended by {@value SUPPORT_MARGIN}. The bounds are compared on primitive intervals, without allocating.
+     *
+     * @param store  Store of the world
+     * @param slot   Slot of the object
+     * @param volume Volume of the object
+     * @return {@code true} if the object is supported
+     */
+    private static boolean isSupported(@Nonnull PhysicsStore store, int slot, @Nonnull Volume volume) {
+        final double x = store.getX(slot), y = store.getY(slot), z = store.getZ(slot);
+        final double hx = volume.x() / 2, hy = volume.y() / 2, hz = volume.z() / 2;
+
+        for (int i = 0; i < store.getImmovableCount(); i++) {
+            final int support = store.getImmovableSlot(i);
+            final Volume v = store.getObject(support).getVolume();
+
+            final double sx = v.x() / 2, sy = (v.y() + SUPPORT_MARGIN) / 2, sz = v.z() / 2;
+            final double cx = store.getX(support), cy = store.getY(support), cz = store.getZ(support);
+
+            if (cx - sx <= x + hx && x - hx <= cx + sx &&
+                    cy - sy <= y + hy && y - hy <= cy + sy &&
+                    cz - sz <= z + hz && z - hz <= cz + sz) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Extra height added to immovable objects when testing for support.
+     */
+    private static final double SUPPORT_MARGIN = 0.5;
 }
@@ -0,0 +1,251 @@
+package oasis.vortex.util.collection.list;
+
+import oasis.vortex.util.collection.set.BetterHashSet;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <h2>CopyOnWriteBetterList</h2>
+ * <p>
+ * A thread-safe {@link BetterList} for registries which are read far more often than they are changed.
+ * </p>
+ * <p>
+ * Every modification replaces the backing array with a modified copy. Readers never lock,
+ * and {@link CopyOnWriteBetterList#array()} hands out the current array itself, so hot loops can iterate
+ * the list without allocating. An array obtained once is never modified afterwards,
+ * so iterating it is unaffected by concurrent modifications.
+ * </p>
+ *
+ * @param <E> Type of element
+ */
+public class CopyOnWriteBetterList<E> extends AbstractList<E> implements BetterList<E>, RandomAccess {
+    /**
+     * Creates an empty list.
+     *
+     * @param generator Generator of arrays of the element type, e.g. {@code Task[]::new}
+     */
+    public CopyOnWriteBetterList(@Nonnull IntFunction<E[]> generator) {
+        this.generator = generator;
+        this.array = generator.apply(0);
+    }
+
+    /**
+     * Creates a list from a collection.
+     *
+     * @param generator  Generator of arrays of the element type, e.g. {@code Task[]::new}
+     * @param collection Collection
+     */
+    public CopyOnWriteBetterList(@Nonnull IntFunction<E[]> generator, @Nonnull Collection<? extends E> collection) {
+        this.generator = generator;
+        this.array = collection.toArray(generator);
+    }
+
+    /**
+     * Gets the current backing array of this list.
+     * The array is shared with every other reader, and must not be modified.
+     *
+     * @return Current elements
+     */
+    @Nonnull
+    public E[] array() {
+        return array;
+    }
+
+    //
+    // Reads
+    //
+
+    @Override
+    public int size() {
+        return array.length;
+    }
+
+    @Override
+    public E get(int index) {
+        return array[index];
+    }
+
+    @Override
+    public int indexOf(@Nullable Object o) {
+        return indexOf(array, o);
+    }
+
+    @Override
+    public boolean contains(@Nullable Object o) {
+        return indexOf(array, o) >= 0;
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<E> iterator() {
+        return Arrays.asList(array).iterator();
+    }
+
+    @Override
+    public void forEach(@Nonnull Consumer<? super E> action) {
+        for (E e : array) action.accept(e);
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(array, Spliterator.IMMUTABLE | Spliterator.ORDERED);
+    }
+
+    @Nonnull
+    @Override
+    public Object[] toArray() {
+        return array.clone();
+    }
+
+    //
+    // Writes
+    //
+
+    @Override
+    public synchronized E set(int index, E element) {
+        final E[] copy = array.clone();
+        final E previous = copy[index];
+
+        copy[index] = element;
+        array = copy;
+        return previous;
+    }
+
+    @Override
+    public synchronized boolean add(E element) {
+        add(array.length, element);
+        return true;
+    }
+
+    @Override
+    public synchronized void add(int index, E element) {
+        final E[] current = array;
+        if (index < 0 || index > current.length) throw new IndexOutOfBoundsException(index);
+
+        final E[] copy = generator.apply(current.length + 1);
+        System.arraycopy(current, 0, copy, 0, index);
+        System.arraycopy(current, index, copy, index + 1, current.length - index);
+        copy[index] = element;
+        array = copy;
+    }
+
+    @Override
+    public synchronized E remove(int index) {
+        final E[] current = array;
+        final E previous = current[index];
+
+        final E[] copy = generator.apply(current.length - 1);
+        System.arraycopy(current, 0, copy, 0, index);
+        System.arraycopy(current, index + 1, copy, index, current.length - index - 1);
+        array = copy;
+        return previous;
+    }
+
+    @Override
+    public synchronized boolean remove(@Nullable Object o) {
+        final int index = indexOf(array, o);
+        if (index < 0) return false;
+
+        remove(index);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean addAll(@Nonnull Collection<? extends E> c) {
+        if (c.isEmpty()) return false;
+
+        final E[] current = array;
+        final Object[] added = c.toArray();
+        final E[] copy = Arrays.copyOf(current, current.length + added.length);
+
+        System.arraycopy(added, 0, copy, current.length, added.length);
+        array = copy;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeIf(@Nonnull Predicate<? super E> filter) {
+        final E[] current = array;
+        final E[] kept = Arrays.stream(current).filter(filter.negate()).toArray(generator);
+        if (kept.length == current.length) return false;
+
+        array = kept;
+        return true;
+    }
+
+    @Override
+    public synchronized void clear() {
+        array = generator.apply(0);
+    }
+
+    //
+    // BetterList
+    //
+
+    @Nonnull
+    @Override
+    public BetterList<E> filter(@Nonnull Predicate<E> filter) {
+        return new BetterArrayList<>(stream().filter(filter).collect(Collectors.toList()));
+    }
+
+    @Nonnull
+    @Override
+    public <F extends E> BetterList<F> filter(@Nonnull Class<F> type) {
+        return new BetterArrayList<>(stream().filter(type::isInstance).map(type::cast).collect(Collectors.toList()));
+    }
+
+    @Nonnull
+    @Override
+    public <F extends E> BetterList<F> filter(@Nonnull Class<F> type, @Nonnull Predicate<F> filter) {
+        return filter(type).filter(filter);
+    }
+
+    @Nonnull
+    @Override
+    public <F extends E> BetterList<F> filter(@Nonnull Predicate<E> filter, @Nonnull Class<F> type) {
+        return filter(filter).filter(type);
+    }
+
+    @Nonnull
+    @Override
+    public <F extends E> Stream<F> map(@Nonnull Function<? super E, ? extends F> mapper) {
+        return stream().map(mapper);
+    }
+
+    @Override
+    public int uniqueSize() {
+        return new BetterHashSet<>(this).size();
+    }
+
+    @Override
+    public boolean contains(@Nonnull Predicate<E> filter, @Nonnull E entry) {
+        return filter(filter).contains(entry);
+    }
+
+    private static int indexOf(@Nonnull Object[] elements, @Nullable Object o) {
+        for (int i = 0; i < elements.length; i++) {
+            if (o == null ? elements[i] == null : o.equals(elements[i])) return i;
+        }
+
+        return -1;
+    }
+
+    @Nonnull
+    private final IntFunction<E[]> generator;
+    @Nonnull
+    private volatile E[] array;
+}
@@ -0,0 +1,464 @@
+package oasis.vortex.util.collection.queue;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * <h2>MpscQueue</h2>
+ * <p>
+ * A lock-free, multi-producer single-consumer FIFO queue.
+ * Any number of threads can offer elements concurrently,
+ * but only one thread at a time may poll or drain the queue.
+ * </p>
+ * <p>
+ * The queue can optionally be bounded. When a bounded queue is full,
+ * the {@link BackpressurePolicy} decides what happens to new elements.
+ * The consumer thread itself is never blocked by its own offers,
+ * as that would deadlock the queue.
+ * </p>
+ *
+ * @param <E> Type of element
+ */
+public final class MpscQueue<E> {
+    /**
+     * Capacity of an unbounded queue.
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+
+    /**
+     * Creates an unbounded queue.
+     */
+    public MpscQueue() {
+        this(UNBOUNDED, BackpressurePolicy.REJECT);
+    }
+
+    /**
+     * Creates a new queue.
+     *
+     * @param capacity Maximum number of elements held at once, or {@link MpscQueue#UNBOUNDED}
+     * @param policy   Policy to apply when the queue is full
+     * @throws IllegalArgumentException When the capacity is not positive
+     */
+    public MpscQueue(@Positive int capacity, @Nonnull BackpressurePolicy policy) throws IllegalArgumentException {
+        if (capacity <= 0) throw new IllegalArgumentException();
+
+        final Node<E> stub = new Node<>(null);
+
+        this.capacity = capacity;
+        this.policy = policy;
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+        this.size = new AtomicInteger();
+        this.pendingDrops = new AtomicInteger();
+        this.dropped = new LongAdder();
+        this.rejected = new LongAdder();
+        this.consumer = null;
+        this.waiting = false;
+    }
+
+    //
+    // Producers
+    //
+
+    /**
+     * Adds an element to the tail of this queue.
+     * This can be called from any thread.
+     *
+     * @param element Element to add
+     * @return {@code false} if the element was rejected
+     */
+    public boolean offer(@Nonnull E element) {
+        if (!reserve()) {
+            rejected.increment();
+            return false;
+        }
+
+        final Node<E> node = new Node<>(element);
+        tail.getAndSet(node).next = node;
+        signal();
+        return true;
+    }
+
+    /**
+     * Adds multiple elements to the tail of this queue, in order.
+     * This can be called from any thread.
+     * <p>
+     * Unbounded queues and {@link BackpressurePolicy#DROP_OLDEST} queues link the elements as one
+     * contiguous chunk with a single atomic operation, and the consumer drains the chunk in a tight loop.
+     * Elements of a chunk are never interleaved with elements offered by other producers.
+     * Other bounded queues offer the elements one at a time, so that the backpressure policy applies to each.
+     * </p>
+     *
+     * @param elements Elements to add
+     * @return Number of elements added
+     */
+    @Nonnegative
+    public int offerAll(@Nonnull Collection<? extends E> elements) {
+        if (elements.isEmpty()) return 0;
+
+        if (capacity != UNBOUNDED && policy != BackpressurePolicy.DROP_OLDEST) {
+            int count = 0;
+
+            for (E element : elements) {
+                if (offer(element)) count++;
+            }
+
+            return count;
+        }
+
+        final Object[] chunk = elements.toArray();
+
+        if (capacity == UNBOUNDED) size.addAndGet(chunk.length);
+        else for (int i = 0; i < chunk.length; i++) reserve();
+
+        final Node<E> node = new Node<>(chunk);
+        tail.getAndSet(node).next = node;
+        signal();
+        return chunk.length;
+    }
+
+    /**
+     * Wakes up the consumer if it is waiting in {@link MpscQueue#await(long)}.
+     */
+    private void signal() {
+        if (!waiting) return;
+
+        final Thread waiter = consumer;
+        if (waiter != null) LockSupport.unpark(waiter);
+    }
+
+    private boolean reserve() {
+        if (capacity == UNBOUNDED) {
+            size.incrementAndGet();
+            return true;
+        }
+
+        return switch (policy) {
+            case REJECT -> tryReserve();
+            case BLOCK -> {
+                while (!tryReserve()) {
+                    if (Thread.currentThread() == consumer) {
+                        // The consumer would never wake up to make room for itself
+                        size.incrementAndGet();
+                        break;
+                    }
+
+                    LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    if (Thread.currentThread().isInterrupted()) yield false;
+                }
+
+                yield true;
+            }
+            case DROP_OLDEST -> {
+                if (size.incrementAndGet() - pendingDrops.get() > capacity) {
+                    // The consumer discards the oldest element on its next poll
+                    pendingDrops.incrementAndGet();
+                    dropped.increment();
+                }
+
+                yield true;
+            }
+        };
+    }
+
+    private boolean tryReserve() {
+        while (true) {
+            final int current = size.get();
+            if (current >= capacity) return false;
+            if (size.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    //
+    // Consumer
+    //
+
+    /**
+     * Removes and returns the head of this queue.
+     * This must only be called from one thread at a time.
+     *
+     * @return Head of this queue, {@code null} if this queue is empty
+     */
+    @Nullable
+    public E poll() {
+        consumer = Thread.currentThread();
+
+        while (true) {
+            final Node<E> next = head.next;
+            if (next == null) return null;
+
+            final E element = take(next);
+            size.decrementAndGet();
+
+            if (!consumeDrop()) return element;
+        }
+    }
+
+    /**
+     * Takes the next element out of a node, and advances the head past the node once it is exhausted.
+     */
+    @SuppressWarnings("unchecked")
+    private E take(@Nonnull Node<E> node) {
+        final Object[] chunk = node.chunk;
+
+        if (chunk == null) {
+            final E element = node.element;
+            node.element = null;
+            head = node;
+            return element;
+        }
+
+        final E element = (E) chunk[node.index];
+        chunk[node.index++] = null;
+
+        if (node.index == chunk.length) {
+            node.chunk = null;
+            head = node;
+        }
+
+        return element;
+    }
+
+    /**
+     * Removes every element from this queue and passes it to the given action, in order.
+     * Elements offered while draining are included.
+     * This must only be called from one thread at a time.
+     *
+     * @param action Action to call for each element
+     * @return Number of drained elements
+     */
+    @Nonnegative
+    public int drain(@Nonnull Consumer<? super E> action) {
+        return drain(action, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes up to the given number of elements from this queue and passes them to the given action, in order.
+     * This must only be called from one thread at a time.
+     *
+     * @param action Action to call for each element
+     * @param limit  Maximum number of elements to drain
+     * @return Number of drained elements
+     */
+    @Nonnegative
+    @SuppressWarnings("unchecked")
+    public int drain(@Nonnull Consumer<? super E> action, @Nonnegative int limit) {
+        consumer = Thread.currentThread();
+        int count = 0;
+
+        while (count < limit) {
+            final Node<E> next = head.next;
+            if (next == null) break;
+
+            final Object[] chunk = next.chunk;
+
+            if (chunk == null) {
+                final E element = take(next);
+                size.decrementAndGet();
+
+                if (consumeDrop()) continue;
+
+                action.accept(element);
+                count++;
+                continue;
+            }
+
+            // Chunks are drained in a tight loop, and the size is only updated once per chunk
+            int index = next.index;
+            final int start = index;
+
+            try {
+                while (index < chunk.length && count < limit) {
+                    final E element = (E) chunk[index];
+                    chunk[index++] = null;
+
+                    if (consumeDrop()) continue;
+
+                    action.accept(element);
+                    count++;
+                }
+            } finally {
+                next.index = index;
+                size.addAndGet(start - index);
+
+                if (index == chunk.length) {
+                    next.chunk = null;
+                    head = next;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Waits until this queue is not empty, until the timeout elapses, or until the thread is unparked.
+     * The waiting thread is woken up by the next producer, so elements are picked up
+     * without polling and without spinning. Any other unpark also ends the wait,
+     * so callers can re-check their own state, for example whether they have been stopped.
+     * This must only be called from the consumer thread.
+     *
+     * @param timeoutNanos Maximum time to wait in nanoseconds
+     * @return {@code true} if this queue is not empty
+     */
+    public boolean await(long timeoutNanos) {
+        consumer = Thread.currentThread();
+        if (head.next != null) return true;
+        if (timeoutNanos <= 0 || Thread.currentThread().isInterrupted()) return false;
+
+        waiting = true;
+
+        try {
+            // Producers link before checking the flag, and the flag is set before checking for elements
+            if (head.next == null) LockSupport.parkNanos(this, timeoutNanos);
+            return head.next != null;
+        } finally {
+            waiting = false;
+        }
+    }
+
+    private boolean consumeDrop() {
+        while (true) {
+            final int current = pendingDrops.get();
+            if (current <= 0) return false;
+            if (pendingDrops.compareAndSet(current, current - 1)) return true;
+        }
+    }
+
+    //
+    // Metrics
+    //
+
+    /**
+     * Gets the number of elements currently waiting in this queue.
+     *
+     * @return Queue depth
+     */
+    @Nonnegative
+    public int size() {
+        return Math.max(size.get() - pendingDrops.get(), 0);
+    }
+
+    /**
+     * Checks if this queue is empty.
+     *
+     * @return {@code true} if there are no elements waiting in this queue
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets the capacity of this queue.
+     *
+     * @return Capacity, or {@link MpscQueue#UNBOUNDED}
+     */
+    @Positive
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the backpressure policy of this queue.
+     *
+     * @return Backpressure policy
+     */
+    @Nonnull
+    public BackpressurePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Gets the total number of elements dropped by {@link BackpressurePolicy#DROP_OLDEST}.
+     *
+     * @return Number of dropped elements
+     */
+    @Nonnegative
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the total number of elements rejected by {@link BackpressurePolicy#REJECT},
+     * or by {@link BackpressurePolicy#BLOCK} when the producer was interrupted.
+     *
+     * @return Number of rejected elements
+     */
+    @Nonnegative
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * The behavior of a bounded queue when it is full.
+     */
+    public enum BackpressurePolicy {
+        /**
+         * The producer waits until the consumer makes room.
+         */
+        BLOCK,
+
+        /**
+         * The oldest element in the queue is discarded in favor of the new one.
+         */
+        DROP_OLDEST,
+
+        /**
+         * The new element is rejected.
+         */
+        REJECT
+    }
+
+    private static final long BLOCK_PARK_NANOS = 50_000;
+
+    @Positive
+    private final int capacity;
+    @Nonnull
+    private final BackpressurePolicy policy;
+    @Nonnull
+    private Node<E> head;
+    @Nonnull
+    private final AtomicReference<Node<E>> tail;
+    @Nonnull
+    private final AtomicInteger size;
+    @Nonnull
+    private final AtomicInteger pendingDrops;
+    @Nonnull
+    private final LongAdder dropped;
+    @Nonnull
+    private final LongAdder rejected;
+    @Nullable
+    private volatile Thread consumer;
+    private volatile boolean waiting;
+
+    /**
+     * A node holds either a single element, or a chunk of elements offered together.
+     */
+    private static final class Node<E> {
+        private Node(@Nullable E element) {
+            this.element = element;
+            this.chunk = null;
+        }
+
+        private Node(@Nonnull Object[] chunk) {
+            this.element = null;
+            this.chunk = chunk;
+        }
+
+        @Nullable
+        private E element;
+        @Nullable
+        private Object[] chunk;
+        private int index;
+        @Nullable
+        private volatile Node<E> next;
+    }
+}
@@ -0,0 +1,107 @@
+package oasis.vortex.util.collection.set;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * <h2>UnmodifiableBetterSet</h2>
+ * <p>
+ * A read-only {@link BetterSet}. Every mutating method throws {@link UnsupportedOperationException}.
+ * Filtered subsets are returned as new {@link BetterHashSet}s, and can be modified freely.
+ * </p>
+ */
+public final class UnmodifiableBetterSet<E> extends AbstractSet<E> implements BetterSet<E> {
+    /**
+     * Creates an unmodifiable copy of given collection.
+     *
+     * @param collection Collection to copy
+     * @param <E>        Type of element
+     * @return Unmodifiable set
+     */
+    @Nonnull
+    public static <E> UnmodifiableBetterSet<E> copyOf(@Nonnull Collection<? extends E> collection) {
+        return new UnmodifiableBetterSet<>(new BetterHashSet<>(collection));
+    }
+
+    private UnmodifiableBetterSet(@Nonnull Set<E> set) {
+        this.set = Collections.unmodifiableSet(set);
+    }
+
+    @Nonnull
+    private final Set<E> set;
+
+    @Nonnull
+    @Override
+    public Iterator<E> iterator() {
+        return set.iterator();
+    }
+
+    @Override
+    public int size() {
+        return set.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return set.contains(o);
+    }
+
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        set.forEach(action);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Nonnull
+    @Override
+    public BetterHashSet<E> filter(@Nonnull Predicate<E> filter) {
+        return new BetterHashSet<>(stream().filter(filter).collect(Collectors.toList()));
+    }
+
+    @Nonnull
+    @Override
+    public <F extends E> BetterHashSet<F> filter(@Nonnull Class<F> type) {
+        return new BetterHashSet<>(stream().filter(type::isInstance).map(type::cast).collect(Collectors.toList()));
+    }
+
+    @Nonnull
+    @Override
+    public <F extends E> BetterHashSet<F> filter(@Nonnull Class<F> type, @Nonnull Predicate<F> filter) {
+        return filter(type).filter(filter);
+    }
+
+    @Nonnull
+    @Override
+    public <F extends E> BetterHashSet<F> filter(@Nonnull Predicate<E> filter, @Nonnull Class<F> type) {
+        return filter(filter).filter(type);
+    }
+
+    @Nonnull
+    @Override
+    public <F extends E> Stream<F> map(@Nonnull Function<? super E, ? extends F> mapper) {
+        return stream().map(mapper);
+    }
+
+    @Override
+    public int uniqueSize() {
+        return size();
+    }
+
+    @Override
+    public boolean contains(@Nonnull Predicate<E> filter, @Nonnull E entry) {
+        return filter.test(entry) && contains(entry);
+    }
+}
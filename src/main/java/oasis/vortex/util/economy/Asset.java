@@ -1,5 +1,6 @@
 package oasis.vortex.util.economy;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 
 /**
@@ -24,9 +25,34 @@ public interface Asset {
 
     /**
      * Whether this asset is stackable with another asset.
+     * This must be consistent with {@link Asset#getStackingKey()}.
      *
      * @param other Asset to compare to
      * @return {@code true} if the two assets should be considered stackable
      */
     boolean isStackableWith(@Nonnull Asset other);
+
+    /**
+     * Gets the key which identifies the stack this asset belongs to.
+     * Two assets are stackable if and only if their stacking keys are equal.
+     * {@link Portfolio}s index their stacks by this key.
+     * By default, this is the symbol of this asset.
+     *
+     * @return Stacking key
+     */
+    @Nonnull
+    default Object getStackingKey() {
+        return getSymbol();
+    }
+
+    /**
+     * Gets the number of decimal places quantities of this asset are stored with.
+     * {@link AssetStack}s store quantities exactly, in units of {@code 10^-scale}.
+     * Stackable assets must have the same scale.
+     * Quantities are rounded to this scale, so it must be fine enough for the smallest quantity in use.
+     *
+     * @return Scale, between 0 and {@value AssetStack#MAX_SCALE}
+     */
+    @Nonnegative
+    int getScale();
 }
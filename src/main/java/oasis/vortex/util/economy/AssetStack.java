@@ -1,21 +1,33 @@
 package oasis.vortex.util.economy;
 
 import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
  * <h2>AssetStack</h2>
  * <p>Represents a stack of assets.</p>
+ * <p>
+ * Quantities are stored as fixed-point numbers, in units of {@code 10^-scale}, where the scale is given by
+ * {@link Asset#getScale()}. Arithmetic on units is exact, and a stack is zero only if it holds exactly zero units.
+ * Methods taking a {@code double} quantity round it to the nearest unit. Whole modifiers and denominators
+ * are applied with integer arithmetic, so they stay exact beyond the precision of a {@code double}.
+ * Arithmetic which would overflow, or which would round a non-zero result down to zero units,
+ * throws an {@link ArithmeticException} instead of losing precision.
+ * </p>
  */
 public final class AssetStack {
     /**
      * Creates a new asset stack.
      *
      * @param asset    Asset to store in this stack
-     * @param quantity Quantity of asset
+     * @param quantity Quantity of asset, rounded to the scale of the asset
+     * @throws IllegalArgumentException When the scale of the asset is not between 0 and {@value MAX_SCALE}
+     * @throws ArithmeticException      When the quantity does not fit the scale of the asset, or rounds to zero
      */
-    public AssetStack(@Nonnull Asset asset, double quantity) {
-        this.asset = asset;
-        this.quantity = quantity;
+    public AssetStack(@Nonnull Asset asset, double quantity) throws IllegalArgumentException, ArithmeticException {
+        this(asset, 0L);
+        this.units = toUnits(quantity);
     }
 
     /**
@@ -26,9 +38,37 @@ public final class AssetStack {
      */
     public AssetStack(@Nonnull AssetStack other) {
         this.asset = other.asset;
-        this.quantity = other.quantity;
+        this.factor = other.factor;
+        this.units = other.units;
+    }
+
+    private AssetStack(@Nonnull Asset asset, long units) throws IllegalArgumentException {
+        final int scale = asset.getScale();
+        if (scale < 0 || scale > MAX_SCALE) throw new IllegalArgumentException();
+
+        this.asset = asset;
+        this.factor = POWERS_OF_TEN[scale];
+        this.units = units;
+    }
+
+    /**
+     * Creates a new asset stack from an exact number of units.
+     *
+     * @param asset Asset to store in the stack
+     * @param units Quantity of asset in units of {@code 10^-scale}
+     * @return Asset stack
+     * @throws IllegalArgumentException When the scale of the asset is not between 0 and {@value MAX_SCALE}
+     */
+    @Nonnull
+    public static AssetStack ofUnits(@Nonnull Asset asset, long units) throws IllegalArgumentException {
+        return new AssetStack(asset, units);
     }
 
+    /**
+     * The maximum scale of an asset.
+     */
+    public static final int MAX_SCALE = 18;
+
     /**
      * Gets the asset stored in this stack.
      *
@@ -39,59 +79,129 @@ public final class AssetStack {
         return asset;
     }
 
+    //
+    // Units
+    //
+
+    /**
+     * Gets the exact quantity of this stack, in units of {@code 10^-scale}.
+     *
+     * @return Units
+     */
+    public long getUnits() {
+        return units;
+    }
+
+    /**
+     * Sets the exact quantity of this stack, in units of {@code 10^-scale}.
+     *
+     * @param units Units
+     */
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    /**
+     * Adds units to this stack.
+     *
+     * @param delta Units to add
+     * @throws ArithmeticException When the result overflows
+     */
+    public void addUnits(long delta) throws ArithmeticException {
+        this.units = Math.addExact(units, delta);
+    }
+
+    /**
+     * Subtracts units from this stack.
+     *
+     * @param delta Units to subtract
+     * @throws ArithmeticException When the result overflows
+     */
+    public void subtractUnits(long delta) throws ArithmeticException {
+        this.units = Math.subtractExact(units, delta);
+    }
+
+    /**
+     * Checks if this stack holds exactly zero units.
+     *
+     * @return {@code true} if this stack is empty
+     */
+    public boolean isZero() {
+        return units == 0;
+    }
+
+    //
+    // Quantity
+    //
+
     /**
      * Gets the amount of assets stored in this stack.
+     * This is an approximation of {@link AssetStack#getUnits()}, intended for display and physics.
      *
      * @return Quantity
      */
     public double getQuantity() {
-        return quantity;
+        return (double) units / factor;
     }
 
     /**
      * Sets the quantity of assets stored in this stack.
      *
-     * @param quantity Quantity
+     * @param quantity Quantity, rounded to the scale of the asset
+     * @throws ArithmeticException When the quantity does not fit the scale of the asset, or rounds to zero
      */
-    public void setQuantity(double quantity) {
-        this.quantity = quantity;
+    public void setQuantity(double quantity) throws ArithmeticException {
+        this.units = toUnits(quantity);
     }
 
     /**
      * Adds delta to this stack.
      *
-     * @param delta Delta
+     * @param delta Delta, rounded to the scale of the asset
+     * @throws ArithmeticException When the result overflows, or the delta rounds to zero
      */
-    public void addQuantity(double delta) {
-        this.quantity += delta;
+    public void addQuantity(double delta) throws ArithmeticException {
+        addUnits(toUnits(delta));
     }
 
     /**
      * Subtracts delta from this stack.
      *
-     * @param delta Delta
+     * @param delta Delta, rounded to the scale of the asset
+     * @throws ArithmeticException When the result overflows, or the delta rounds to zero
      */
-    public void subtractQuantity(double delta) {
-        this.quantity -= delta;
+    public void subtractQuantity(double delta) throws ArithmeticException {
+        subtractUnits(toUnits(delta));
     }
 
     /**
      * Multiplies this stack by given modifier.
+     * The result is rounded to the scale of the asset. Whole modifiers are applied exactly.
      *
      * @param modifier Modifier
+     * @throws ArithmeticException When the result overflows, or a non-zero result rounds to zero
      */
-    public void multiplyQuantity(double modifier) {
-        this.quantity *= modifier;
+    public void multiplyQuantity(double modifier) throws ArithmeticException {
+        if (isWhole(modifier)) {
+            this.units = Math.multiplyExact(units, (long) modifier);
+            return;
+        }
+
+        this.units = nonZero(round(units * modifier), units != 0 && modifier != 0);
     }
 
     /**
      * Divides this stack by given denominator.
+     * The result is rounded to the scale of the asset. Whole denominators are applied exactly.
      *
      * @param denominator Denominator
-     * @throws ArithmeticException When denominator is zero
+     * @throws ArithmeticException When denominator is zero, the result overflows, or a non-zero result rounds to zero
      */
     public void divideQuantity(double denominator) throws ArithmeticException {
-        this.quantity /= denominator;
+        if (denominator == 0) throw new ArithmeticException("Division by zero");
+
+        final long result = isWhole(denominator) ? divide(units, (long) denominator) : round(units / denominator);
+        this.units = nonZero(result, units != 0 && !Double.isInfinite(denominator));
     }
 
     /**
@@ -101,10 +211,68 @@ public final class AssetStack {
      * @return {@code true} If the asset being held is equals and the quantity is same
      */
     public boolean equals(@Nonnull AssetStack other) {
-        return asset.equals(other.asset) && quantity == other.quantity;
+        return asset.equals(other.asset) && units == other.units;
+    }
+
+    private long toUnits(double quantity) throws ArithmeticException {
+        final double value = quantity * factor;
+
+        // Beyond 2^53, the product itself is rounded; scale the exact value of the quantity instead
+        if (Math.abs(value) < 0x1p53) return nonZero(round(value), quantity != 0);
+        if (Double.isNaN(value) || Double.isInfinite(value)) throw new ArithmeticException("Overflow");
+
+        return new BigDecimal(quantity)
+                .multiply(BigDecimal.valueOf(factor))
+                .add(HALF)
+                .setScale(0, RoundingMode.FLOOR)
+                .longValueExact();
+    }
+
+    private static long round(double value) throws ArithmeticException {
+        if (Double.isNaN(value) || value >= 0x1p63 || value < -0x1p63) throw new ArithmeticException("Overflow");
+        return Math.round(value);
+    }
+
+    /**
+     * Divides two longs, rounding half up like {@link Math#round(double)}.
+     *
+     * @param dividend    Dividend
+     * @param denominator Denominator, not zero
+     * @return Rounded quotient
+     * @throws ArithmeticException When the result overflows
+     */
+    private static long divide(long dividend, long denominator) throws ArithmeticException {
+        if (denominator < 0) {
+            dividend = Math.negateExact(dividend);
+            denominator = Math.negateExact(denominator);
+        }
+
+        final long quotient = Math.floorDiv(dividend, denominator);
+        final long remainder = Math.floorMod(dividend, denominator);
+
+        return remainder >= denominator - remainder ? Math.addExact(quotient, 1) : quotient;
+    }
+
+    private static boolean isWhole(double value) {
+        return value == Math.rint(value) && value >= -0x1p63 && value < 0x1p63;
+    }
+
+    private static long nonZero(long units, boolean expected) throws ArithmeticException {
+        if (units == 0 && expected) throw new ArithmeticException("Quantity is below the scale of the asset");
+        return units;
+    }
+
+    private static final BigDecimal HALF = BigDecimal.valueOf(5, 1);
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_SCALE; i++) POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
     }
 
     @Nonnull
     private final Asset asset;
-    private double quantity;
+    private final long factor;
+    private long units;
 }
@@ -3,9 +3,12 @@ package oasis.vortex.util.economy;
 import oasis.vortex.util.collection.set.BetterHashSet;
 import oasis.vortex.util.collection.set.BetterSet;
 
+import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * <h2>Portfolio</h2>
@@ -13,34 +16,47 @@ import java.util.Collection;
  * A portfolio holds asset stacks.
  * Portfolios ensure that every stackable asset is stacked into one instance.
  * Entries with 0 quantity will be considered meaningless and removed.
+ * Quantities are compared and checked for zero exactly, in {@link AssetStack#getUnits() units}.
+ * </p>
+ * <p>
+ * Stacks are indexed by the {@link Asset#getStackingKey() stacking key} of their asset,
+ * so looking up, adding and removing a stack takes constant time regardless of the size of the portfolio.
  * </p>
  */
 public final class Portfolio {
     /**
      * Creates an empty portfolio.
      */
-    public Portfolio() {this.stacks = new BetterHashSet<>();}
+    public Portfolio() {this.stacks = new HashMap<>();}
 
     /**
      * Creates a new portfolio from given stacks.
      *
      * @param stacks Stacks to contain
      */
-    public Portfolio(@Nonnull AssetStack... stacks) {this.stacks = new BetterHashSet<>(stacks);}
+    public Portfolio(@Nonnull AssetStack... stacks) {
+        this();
+        for (AssetStack stack : stacks) addStack(stack);
+    }
 
     /**
      * Creates a new portfolio from a collection.
      *
      * @param collection Collection to get stacks from
      */
-    public Portfolio(@Nonnull Collection<AssetStack> collection) {this.stacks = new BetterHashSet<>(collection);}
+    public Portfolio(@Nonnull Collection<AssetStack> collection) {
+        this();
+        collection.forEach(this::addStack);
+    }
 
     /**
      * Creates a new portfolio from a set.
      *
      * @param stacks Stacks to contain
      */
-    public Portfolio(@Nonnull BetterSet<AssetStack> stacks) {this.stacks = stacks;}
+    public Portfolio(@Nonnull BetterSet<AssetStack> stacks) {
+        this((Collection<AssetStack>) stacks);
+    }
 
     /**
      * Performs a shallow copy of given portfolio.
@@ -58,7 +74,17 @@ public final class Portfolio {
      */
     @Nonnull
     public BetterSet<AssetStack> getStacks() {
-        return new BetterHashSet<>(stacks);
+        return new BetterHashSet<>(stacks.values());
+    }
+
+    /**
+     * Gets the number of stacks stored in this portfolio.
+     *
+     * @return Number of stacks
+     */
+    @Nonnegative
+    public int size() {
+        return stacks.size();
     }
 
     /**
@@ -69,8 +95,7 @@ public final class Portfolio {
      */
     @Nullable
     public AssetStack getStack(@Nonnull Asset asset) {
-        for (AssetStack stack : getStacks()) if (stack.getAsset().isStackableWith(asset)) return stack;
-        return null;
+        return stacks.get(asset.getStackingKey());
     }
 
     /**
@@ -80,14 +105,16 @@ public final class Portfolio {
      * @param stack Stack to add
      */
     public void addStack(@Nonnull AssetStack stack) {
-        final AssetStack existing = getStack(stack.getAsset());
+        final Object key = stack.getAsset().getStackingKey();
+        final AssetStack existing = stacks.get(key);
+
         if (existing != null) {
-            existing.addQuantity(stack.getQuantity());
-            stacks.removeIf(s -> s.getQuantity() == 0);
+            existing.addUnits(stack.getUnits());
+            if (existing.isZero()) stacks.remove(key);
             return;
         }
 
-        stacks.add(new AssetStack(stack));
+        if (!stack.isZero()) stacks.put(key, new AssetStack(stack));
     }
 
     /**
@@ -97,18 +124,50 @@ public final class Portfolio {
      * @param stack Stack to remove
      */
     public void removeStack(@Nonnull AssetStack stack) {
-        final AssetStack existing = getStack(stack.getAsset());
+        final Object key = stack.getAsset().getStackingKey();
+        final AssetStack existing = stacks.get(key);
+
         if (existing != null) {
-            existing.subtractQuantity(stack.getQuantity());
-            stacks.removeIf(s -> s.getQuantity() == 0);
+            existing.subtractUnits(stack.getUnits());
+            if (existing.isZero()) stacks.remove(key);
             return;
         }
 
+        if (stack.isZero()) return;
+
         // Negates the stack and adds it to stacks
         final AssetStack copy = new AssetStack(stack);
-        copy.multiplyQuantity(-1);
+        copy.setUnits(Math.negateExact(stack.getUnits()));
 
-        stacks.add(copy);
+        stacks.put(key, copy);
+    }
+
+    /**
+     * Sets the exact quantity of an asset in this portfolio, in units of {@code 10^-scale}.
+     * The entry of the asset is removed when the quantity is zero.
+     *
+     * @param stack Stack of the asset to set
+     * @param units Units of the asset
+     */
+    void setUnitsOf(@Nonnull AssetStack stack, long units) {
+        final Object key = stack.getAsset().getStackingKey();
+
+        if (units == 0) {
+            stacks.remove(key);
+            return;
+        }
+
+        final AssetStack existing = stacks.get(key);
+
+        if (existing != null) {
+            existing.setUnits(units);
+            return;
+        }
+
+        final AssetStack copy = new AssetStack(stack);
+        copy.setUnits(units);
+
+        stacks.put(key, copy);
     }
 
     /**
@@ -123,6 +182,18 @@ public final class Portfolio {
         return stack != null ? stack.getQuantity() : 0;
     }
 
+    /**
+     * Gets the exact quantity of given asset in this portfolio, in units of {@code 10^-scale}.
+     * This will return 0 if this portfolio does not have a corresponding entry.
+     *
+     * @param asset Asset to query
+     * @return {@code units} of the asset stack if found, {@code 0} if not found
+     */
+    public long getUnitsOf(@Nonnull Asset asset) {
+        final AssetStack stack = getStack(asset);
+        return stack != null ? stack.getUnits() : 0;
+    }
+
     /**
      * Checks if this portfolio contains at least the specified quantity of given asset.
      * Note that when a zero or negative quantity is provided and this portfolio does not
@@ -132,9 +203,9 @@ public final class Portfolio {
      * @return Whether this asset contains at least the given quantity.
      */
     public boolean contains(@Nonnull AssetStack stack) {
-        return getQuantityOf(stack.getAsset()) >= stack.getQuantity();
+        return getUnitsOf(stack.getAsset()) >= stack.getUnits();
     }
 
     @Nonnull
-    private final BetterSet<AssetStack> stacks;
+    private final Map<Object, AssetStack> stacks;
 }
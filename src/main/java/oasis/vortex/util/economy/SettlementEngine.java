@@ -0,0 +1,231 @@
+package oasis.vortex.util.economy;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <h2>SettlementEngine</h2>
+ * <p>
+ * Settles transfers of assets between {@link Portfolio}s atomically.
+ * The balance check and the mutation of both portfolios happen under the locks of both portfolios,
+ * so a sender can never spend the same assets twice, and no thread observes a half-applied transfer.
+ * </p>
+ * <p>
+ * Portfolios are mapped onto a fixed number of striped locks. A transfer acquires the locks of its two portfolios
+ * in ascending stripe order, so transfers between any portfolios never deadlock.
+ * Transfers between unrelated portfolios usually hold different stripes, and settle in parallel.
+ * </p>
+ * <p>
+ * Portfolios are not thread-safe by themselves. While portfolios are settled concurrently,
+ * they must only be accessed through an engine, and every thread must use the same engine.
+ * </p>
+ */
+public final class SettlementEngine {
+    /**
+     * The default number of lock stripes.
+     */
+    public static final int DEFAULT_STRIPES = 256;
+
+    /**
+     * Creates a settlement engine with the default number of stripes.
+     */
+    public SettlementEngine() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a new settlement engine.
+     * The number of stripes is rounded up to a power of two.
+     *
+     * @param stripes Number of lock stripes
+     * @throws IllegalArgumentException When the number of stripes is not positive
+     */
+    public SettlementEngine(@Positive int stripes) throws IllegalArgumentException {
+        if (stripes <= 0 || stripes > 1 << 30) throw new IllegalArgumentException();
+
+        final int size = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        this.settled = new LongAdder();
+        this.rejected = new LongAdder();
+
+        for (int i = 0; i < size; i++) locks[i] = new ReentrantLock();
+    }
+
+    //
+    // Settlement
+    //
+
+    /**
+     * Transfers a stack of assets from one portfolio to another, if the sender holds enough of the asset.
+     *
+     * @param sender    Portfolio to take the assets from
+     * @param recipient Portfolio to give the assets to
+     * @param payment   Assets to transfer
+     * @return {@code true} if the transfer was settled, {@code false} if the sender could not afford it
+     * @throws IllegalArgumentException When the payment is not positive
+     * @throws ArithmeticException      When the balance of the recipient would overflow
+     */
+    public boolean settle(
+            @Nonnull Portfolio sender,
+            @Nonnull Portfolio recipient,
+            @Nonnull AssetStack payment
+    ) throws IllegalArgumentException, ArithmeticException {
+        return settle(sender, recipient, payment, null);
+    }
+
+    /**
+     * Transfers a stack of assets from one portfolio to another, if the sender holds enough of the asset.
+     * <p>
+     * The journal is called once the transfer has been validated, while the locks of both portfolios are held,
+     * and before the transfer is applied. If the journal throws, the transfer is not applied.
+     * This allows transfers to be written ahead to a log in exactly the order they are applied.
+     * </p>
+     * <p>
+     * Both new balances are computed before either portfolio is changed,
+     * so a transfer which would overflow leaves both portfolios untouched.
+     * </p>
+     *
+     * @param sender    Portfolio to take the assets from
+     * @param recipient Portfolio to give the assets to
+     * @param payment   Assets to transfer
+     * @param journal   Action to call before the transfer is applied, or {@code null}
+     * @return {@code true} if the transfer was settled, {@code false} if the sender could not afford it
+     * @throws IllegalArgumentException When the payment is not positive
+     * @throws ArithmeticException      When the balance of the recipient would overflow
+     */
+    public boolean settle(
+            @Nonnull Portfolio sender,
+            @Nonnull Portfolio recipient,
+            @Nonnull AssetStack payment,
+            @Nullable Runnable journal
+    ) throws IllegalArgumentException, ArithmeticException {
+        final long units = payment.getUnits();
+        if (units <= 0) throw new IllegalArgumentException();
+
+        final Asset asset = payment.getAsset();
+        final ReentrantLock first = lockOf(sender);
+        final ReentrantLock second = lockOf(recipient);
+        final boolean ordered = stripeOf(sender) <= stripeOf(recipient);
+
+        lock(ordered ? first : second, ordered ? second : first);
+
+        try {
+            final long balance = sender.getUnitsOf(asset);
+
+            if (balance < units) {
+                rejected.increment();
+                return false;
+            }
+
+            final long senderUnits = balance - units;
+            final long recipientUnits = Math.addExact(recipient == sender ? senderUnits : recipient.getUnitsOf(asset), units);
+
+            if (journal != null) journal.run();
+
+            sender.setUnitsOf(payment, senderUnits);
+            recipient.setUnitsOf(payment, recipientUnits);
+        } finally {
+            unlock(first, second);
+        }
+
+        settled.increment();
+        return true;
+    }
+
+    /**
+     * Gets the exact quantity of an asset in a portfolio, consistent with concurrent settlements.
+     *
+     * @param portfolio Portfolio to query
+     * @param asset     Asset to query
+     * @return Units of the asset in the portfolio
+     */
+    public long getUnitsOf(@Nonnull Portfolio portfolio, @Nonnull Asset asset) {
+        final ReentrantLock lock = lockOf(portfolio);
+        lock.lock();
+
+        try {
+            return portfolio.getUnitsOf(asset);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //
+    // Locks
+    //
+
+    /**
+     * Gets the lock stripe guarding a portfolio.
+     *
+     * @param portfolio Portfolio to query
+     * @return Index of the stripe
+     */
+    @Nonnegative
+    int stripeOf(@Nonnull Portfolio portfolio) {
+        final int h = System.identityHashCode(portfolio);
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    @Nonnull
+    ReentrantLock lockOf(@Nonnull Portfolio portfolio) {
+        return locks[stripeOf(portfolio)];
+    }
+
+    private static void lock(@Nonnull ReentrantLock first, @Nonnull ReentrantLock second) {
+        first.lock();
+        if (second != first) second.lock();
+    }
+
+    private static void unlock(@Nonnull ReentrantLock first, @Nonnull ReentrantLock second) {
+        if (second != first) second.unlock();
+        first.unlock();
+    }
+
+    //
+    // Metrics
+    //
+
+    /**
+     * Gets the number of lock stripes of this engine.
+     *
+     * @return Number of stripes
+     */
+    @Positive
+    public int getStripes() {
+        return locks.length;
+    }
+
+    /**
+     * Gets the total number of settled transfers.
+     *
+     * @return Number of settled transfers
+     */
+    @Nonnegative
+    public long getSettledCount() {
+        return settled.sum();
+    }
+
+    /**
+     * Gets the total number of transfers rejected because the sender could not afford them.
+     *
+     * @return Number of rejected transfers
+     */
+    @Nonnegative
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Nonnull
+    private final ReentrantLock[] locks;
+    private final int mask;
+    @Nonnull
+    private final LongAdder settled;
+    @Nonnull
+    private final LongAdder rejected;
+}
@@ -0,0 +1,134 @@
+package oasis.vortex.util.physics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * <h2>BoundingBox</h2>
+ * <p>
+ * A mutable, axis-aligned bounding box, stored as primitive minimum and maximum coordinates.
+ * Unlike {@link TriLocation}, a bounding box can be updated in place, which allows objects
+ * to cache their bounds and test them for overlaps without allocating.
+ * </p>
+ * <p>
+ * Bounding boxes are not thread-safe.
+ * </p>
+ */
+public final class BoundingBox {
+    /**
+     * Creates an empty bounding box at the origin.
+     */
+    public BoundingBox() {
+        this.volume = null;
+    }
+
+    /**
+     * Creates a bounding box of given center and volume.
+     *
+     * @param center Center of the box
+     * @param volume Volume of the box
+     */
+    public BoundingBox(@Nonnull Location center, @Nonnull Volume volume) {
+        update(center.x(), center.y(), center.z(), volume);
+    }
+
+    private double minX, minY, minZ;
+    private double maxX, maxY, maxZ;
+    private double centerX, centerY, centerZ;
+    @Nullable
+    private Volume volume;
+
+    /**
+     * Moves and resizes this box. Bounds are only recomputed if the center or volume has changed.
+     *
+     * @param x      X coordinate of center
+     * @param y      Y coordinate of center
+     * @param z      Z coordinate of center
+     * @param volume Volume of the box
+     * @return This box
+     */
+    @Nonnull
+    public BoundingBox update(double x, double y, double z, @Nonnull Volume volume) {
+        if (volume == this.volume && x == centerX && y == centerY && z == centerZ) return this;
+
+        final double halfX = volume.x() / 2;
+        final double halfY = volume.y() / 2;
+        final double halfZ = volume.z() / 2;
+
+        this.minX = x - halfX;
+        this.minY = y - halfY;
+        this.minZ = z - halfZ;
+        this.maxX = x + halfX;
+        this.maxY = y + halfY;
+        this.maxZ = z + halfZ;
+        this.centerX = x;
+        this.centerY = y;
+        this.centerZ = z;
+        this.volume = volume;
+
+        return this;
+    }
+
+    /**
+     * Checks if this box overlaps another. Boxes which only touch are considered overlapping.
+     *
+     * @param other Box to check
+     * @return {@code true} if the boxes overlap on every axis
+     */
+    public boolean overlaps(@Nonnull BoundingBox other) {
+        return overlaps(other.minX, other.minY, other.minZ, other.maxX, other.maxY, other.maxZ);
+    }
+
+    /**
+     * Checks if this box overlaps the given bounds. Bounds which only touch are considered overlapping.
+     *
+     * @param minX Minimum X coordinate
+     * @param minY Minimum Y coordinate
+     * @param minZ Minimum Z coordinate
+     * @param maxX Maximum X coordinate
+     * @param maxY Maximum Y coordinate
+     * @param maxZ Maximum Z coordinate
+     * @return {@code true} if the bounds overlap on every axis
+     */
+    public boolean overlaps(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        return this.minX <= maxX && minX <= this.maxX &&
+                this.minY <= maxY && minY <= this.maxY &&
+                this.minZ <= maxZ && minZ <= this.maxZ;
+    }
+
+    /**
+     * Checks if this box entirely contains another.
+     *
+     * @param other Box to check
+     * @return {@code true} if the other box is within the bounds of this box
+     */
+    public boolean contains(@Nonnull BoundingBox other) {
+        return other.minX >= minX && other.maxX <= maxX &&
+                other.minY >= minY && other.maxY <= maxY &&
+                other.minZ >= minZ && other.maxZ <= maxZ;
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMinZ() {
+        return minZ;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    public double getMaxZ() {
+        return maxZ;
+    }
+}
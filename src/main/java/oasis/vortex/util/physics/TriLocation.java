@@ -74,28 +74,42 @@ public record TriLocation(
      * Checks if this TriLocation contains another.
      *
      * @param other TriLocation to check
-     * @return {@code true} if all eight corners are within the bounds of this TriLocation
+     * @return {@code true} if the other TriLocation is entirely within the bounds of this TriLocation
      */
     public boolean contains(@Nonnull TriLocation other) {
-        for (Location corner : other.getCorners()) {
-            if (!contains(corner)) return false;
-        }
+        final Location c = other.center;
+        final Volume v = other.volume;
 
-        return true;
+        return c.x() - v.x() / 2 >= center.x() - volume.x() / 2 && c.x() + v.x() / 2 <= center.x() + volume.x() / 2 &&
+                c.y() - v.y() / 2 >= center.y() - volume.y() / 2 && c.y() + v.y() / 2 <= center.y() + volume.y() / 2 &&
+                c.z() - v.z() / 2 >= center.z() - volume.z() / 2 && c.z() + v.z() / 2 <= center.z() + volume.z() / 2;
     }
 
     /**
      * Checks if this TriLocation overlaps another.
+     * The bounds of both TriLocations are compared axis by axis, so boxes which cross each other
+     * without having a corner inside the other are also detected. Boxes which only touch are considered overlapping.
      *
      * @param other TriLocation to check
-     * @return {@code true} if at least one of the eight corners are within the bounds of this TriLocation
+     * @return {@code true} if the bounds of the TriLocations overlap on every axis
      */
     public boolean overlaps(@Nonnull TriLocation other) {
-        for (Location corner : other.getCorners()) {
-            if (contains(corner)) return true;
-        }
+        final Location c = other.center;
+        final Volume v = other.volume;
+
+        return center.x() - volume.x() / 2 <= c.x() + v.x() / 2 && c.x() - v.x() / 2 <= center.x() + volume.x() / 2 &&
+                center.y() - volume.y() / 2 <= c.y() + v.y() / 2 && c.y() - v.y() / 2 <= center.y() + volume.y() / 2 &&
+                center.z() - volume.z() / 2 <= c.z() + v.z() / 2 && c.z() - v.z() / 2 <= center.z() + volume.z() / 2;
+    }
 
-        return false;
+    /**
+     * Gets the axis-aligned bounding box of this TriLocation.
+     *
+     * @return New {@link BoundingBox}
+     */
+    @Nonnull
+    public BoundingBox toBoundingBox() {
+        return new BoundingBox(center, volume);
     }
 
     /**
@@ -0,0 +1,171 @@
+package oasis.vortex.world;
+
+import oasis.vortex.object.Object;
+import oasis.vortex.util.collection.set.BetterHashSet;
+import oasis.vortex.util.collection.set.BetterSet;
+import oasis.vortex.util.collection.set.UnmodifiableBetterSet;
+import oasis.vortex.util.string.BetterString;
+import oasis.vortex.world.physics.PhysicsStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * <h2>AbstractWorld</h2>
+ * <p>
+ *     This is the default superimplementation of {@link World}.
+ *     Parameters and methods present in all worlds are defined and handled.
+ * </p>
+ * <p>
+ *     {@link AbstractWorld#getObjects()} returns an immutable snapshot, which is cached
+ *     until an object is added or removed. {@link AbstractWorld#forEachObject(Consumer)} iterates
+ *     the cached snapshot, so it is unaffected by concurrent changes, and only copies the objects
+ *     once after they have changed.
+ * </p>
+ * <p>
+ *     Objects can be added and removed from any thread. Changes are guarded by the monitor of the world,
+ *     and the {@link PhysicsStore} of the world must only be accessed while holding it.
+ *     Ticks and physics steps synchronize on the world for their duration.
+ * </p>
+ * <p>
+ *     This class is abstract, and is not intended to be instantiated directly.
+ * </p>
+ */
+public abstract class AbstractWorld implements World {
+    /**
+     * Default constructor.
+     * Gravity and air density are set to their default values.
+     *
+     * @param uniqueId Unique identifier of this world
+     * @param name Name of this world
+     */
+    protected AbstractWorld(@Nonnull UUID uniqueId, @Nonnull BetterString name) {
+        this.uniqueId = uniqueId;
+        this.name = name;
+        this.objects = new BetterHashSet<>();
+        this.physicsStore = new PhysicsStore();
+        this.snapshot = null;
+        this.observers = new CopyOnWriteArrayList<>();
+        this.gravity = DEFAULT_GRAVITY;
+        this.airDensity = DEFAULT_AIR_DENSITY;
+    }
+
+    //
+    // Variables
+    //
+    @Nonnull
+    private final UUID uniqueId;
+    @Nonnull
+    private BetterString name;
+    @Nonnull
+    private final BetterSet<Object> objects;
+    @Nonnull
+    private final PhysicsStore physicsStore;
+    @Nullable
+    private volatile BetterSet<Object> snapshot;
+    @Nonnull
+    private final CopyOnWriteArrayList<WorldObserver> observers;
+    private double gravity;
+    @Positive
+    private double airDensity;
+
+    //
+    // Methods
+    //
+
+    @Override
+    @Nonnull
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    @Override
+    @Nonnull
+    public BetterString getName() {
+        return name;
+    }
+
+    @Override
+    public void setName(@Nonnull BetterString name) {
+        this.name = name;
+    }
+
+    @Override
+    @Nonnull
+    public BetterSet<Object> getObjects() {
+        final BetterSet<Object> current = snapshot;
+        if (current != null) return current;
+
+        // Built under the lock, so a snapshot is never published after a later change has discarded it
+        synchronized (this) {
+            if (snapshot == null) snapshot = UnmodifiableBetterSet.copyOf(objects);
+            return snapshot;
+        }
+    }
+
+    @Override
+    public void forEachObject(@Nonnull Consumer<? super Object> action) {
+        getObjects().forEach(action);
+    }
+
+    @Override
+    public synchronized void addObject(@Nonnull Object object) {
+        if (!objects.add(object)) return;
+
+        physicsStore.add(object);
+        snapshot = null;
+
+        for (WorldObserver observer : observers) observer.onObjectAdded(this, object);
+    }
+
+    @Override
+    public synchronized void removeObject(@Nonnull Object object) {
+        if (!objects.remove(object)) return;
+
+        physicsStore.remove(object);
+        snapshot = null;
+
+        for (WorldObserver observer : observers) observer.onObjectRemoved(this, object);
+    }
+
+    @Override
+    public void addObserver(@Nonnull WorldObserver observer) {
+        observers.addIfAbsent(observer);
+    }
+
+    @Override
+    public void removeObserver(@Nonnull WorldObserver observer) {
+        observers.remove(observer);
+    }
+
+    @Override
+    @Nonnull
+    public PhysicsStore getPhysicsStore() {
+        return physicsStore;
+    }
+
+    @Override
+    public double getGravity() {
+        return gravity;
+    }
+
+    @Override
+    public void setGravity(double gravity) {
+        this.gravity = gravity;
+    }
+
+    @Override
+    @Positive
+    public double getAirDensity() {
+        return airDensity;
+    }
+
+    @Override
+    public void setAirDensity(@Positive double airDensity) {
+        this.airDensity = airDensity;
+    }
+}
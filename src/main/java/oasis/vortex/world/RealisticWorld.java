@@ -1,32 +1,34 @@
 package oasis.vortex.world;
 
 import oasis.vortex.Vortex;
+import oasis.vortex.event.Event;
 import oasis.vortex.event.physics.CollisionEvent;
 import oasis.vortex.object.Object;
 import oasis.vortex.util.collection.list.BetterArrayList;
 import oasis.vortex.util.collection.list.BetterList;
-import oasis.vortex.util.collection.set.BetterHashSet;
-import oasis.vortex.util.collection.set.BetterSet;
 import oasis.vortex.util.string.BetterString;
+import oasis.vortex.world.broadphase.BroadPhase;
+import oasis.vortex.world.broadphase.UniformGridBroadPhase;
+import oasis.vortex.world.physics.ContactSet;
+import oasis.vortex.world.physics.PhysicsStore;
 import org.joda.time.Duration;
 
 import javax.annotation.Nonnull;
-import javax.validation.constraints.Positive;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.UUID;
+import java.util.function.BiConsumer;
 
 /**
  * <h2>RealisticWorld</h2>
  * <p>
  *     A world that behaves like reality.
  *     Collisions between all objects induce {@link CollisionEvent}s.
+ *     Only pairs reported by the world's {@link BroadPhase} are tested for collisions.
  * </p>
  * <p>
  *     Gravity and air density is set to default Earth-like values.
  * </p>
  */
-public class RealisticWorld implements World {
+public class RealisticWorld extends AbstractWorld {
     /**
      * Creates a new realistic world.
      *
@@ -34,106 +36,167 @@ public class RealisticWorld implements World {
      * @param name Name of this world
      */
     public RealisticWorld(@Nonnull UUID uniqueId, @Nonnull BetterString name) {
-        this.uniqueId = uniqueId;
-        this.name = name;
-        this.objects = new BetterHashSet<>();
-        this.gravity = DEFAULT_GRAVITY;
-        this.airDensity = DEFAULT_AIR_DENSITY;
+        this(uniqueId, name, new UniformGridBroadPhase());
     }
 
-    private final transient Map<Object, BetterList<Object>> overlaps = new HashMap<>();
+    /**
+     * Creates a new realistic world with a custom broad phase.
+     *
+     * @param uniqueId Unique identifier of this world
+     * @param name Name of this world
+     * @param broadPhase Broad phase used to find collision candidates
+     */
+    public RealisticWorld(@Nonnull UUID uniqueId, @Nonnull BetterString name, @Nonnull BroadPhase broadPhase) {
+        super(uniqueId, name);
+        this.broadPhase = broadPhase;
+    }
 
     /**
      * <h2>Default tick behavior of {@link RealisticWorld}</h2>
      * <p>
-     *     Every object is compared with every other for overlapping TriLocations.
-     *     If the TriLocations overlap, a {@link CollisionEvent} is called.
+     *     The broad phase is refreshed with the current bounds of every object,
+     *     then every candidate pair is checked for overlapping bounding boxes.
+     *     Overlapping pairs are tracked in a {@link ContactSet}, which reports contacts
+     *     to {@link RealisticWorld#onContactBegin(Object, Object)},
+     *     {@link RealisticWorld#onContactPersist(Object, Object)} and
+     *     {@link RealisticWorld#onContactEnd(Object, Object)}.
+     *     Collision events are staged during the tick, and published together at the end of it,
+     *     to the event task of Vortex at that time.
+     * </p>
+     * <p>
+     *     The tick holds the monitor of this world, so objects added or removed by other threads
+     *     wait for it to finish. The events are published after the monitor has been released,
+     *     so a full event queue never holds up threads which change this world.
      * </p>
      * @param delta Actual delta between the last tick and this one
      */
     @Override
     public void tick(@Nonnull Duration delta) {
-        for (Object o1 : getObjects()) {
-            final BetterList<Object> overlapping = overlaps.getOrDefault(o1, new BetterArrayList<>());
-
-            for (Object o2 : getObjects().filter(o -> !o.equals(o1))) {
-                if (o1.overlaps(o2)) {
-                    if (!overlapping.contains(o2)) {
-                        Vortex.getEventTask().callEvent(CollisionEvent.builder()
-                                .world(this)
-                                .object1(o1)
-                                .object2(o2)
-                                .build());
-                        overlapping.add(o2);
-                    }
-                } else overlapping.remove(o2);
-            }
-
-            overlaps.put(o1, overlapping);
+        final BetterList<Event> published;
+
+        synchronized (this) {
+            forEachObject(broadPhase::update);
+
+            contacts.beginPass();
+            broadPhase.forEachCandidatePair(pairTest);
+
+            // Objects which are not reported as a candidate pair cannot overlap
+            contacts.endPass(contactHandler);
+
+            // Staging continues in the other batch while this one is published
+            published = collisions;
+            collisions = outgoing;
+            outgoing = published;
+        }
+
+        if (published.isEmpty()) return;
+
+        // Resolved on every tick, so events always go to the current event task
+        try {
+            Vortex.getEventTask().callEvents(published);
+        } finally {
+            published.clear();
         }
     }
 
-    @Nonnull
-    private final UUID uniqueId;
-    @Nonnull
-    private BetterString name;
-    @Nonnull
-    private final BetterSet<Object> objects;
-    private double gravity;
-    @Positive
-    private double airDensity;
+    private void testPair(@Nonnull Object o1, @Nonnull Object o2) {
+        if (!o1.overlaps(o2)) return;
 
-    @Override
-    @Nonnull
-    public UUID getUniqueId() {
-        return uniqueId;
+        final PhysicsStore store = getPhysicsStore();
+        contacts.touch(store.slotOf(o1), store.slotOf(o2), contactHandler);
     }
 
-    @Override
-    @Nonnull
-    public BetterString getName() {
-        return name;
+    /**
+     * Called when two objects start overlapping.
+     * By default, a {@link CollisionEvent} is called for each object colliding with the other.
+     *
+     * @param o1 First object
+     * @param o2 Second object
+     */
+    protected void onContactBegin(@Nonnull Object o1, @Nonnull Object o2) {
+        collide(o1, o2);
+        collide(o2, o1);
     }
 
-    @Override
-    public void setName(@Nonnull BetterString name) {
-        this.name = name;
+    /**
+     * Called every tick two objects keep overlapping after their contact has begun.
+     * Does nothing by default. Override to add behavior.
+     *
+     * @param o1 First object
+     * @param o2 Second object
+     */
+    protected void onContactPersist(@Nonnull Object o1, @Nonnull Object o2) {}
+
+    /**
+     * Called when two objects stop overlapping, or when one of them is removed from this world.
+     * Does nothing by default. Override to add behavior.
+     *
+     * @param o1 First object
+     * @param o2 Second object
+     */
+    protected void onContactEnd(@Nonnull Object o1, @Nonnull Object o2) {}
+
+    private void collide(@Nonnull Object o1, @Nonnull Object o2) {
+        collisions.add(CollisionEvent.builder()
+                .world(this)
+                .object1(o1)
+                .object2(o2)
+                .build());
     }
 
     @Nonnull
-    @Override
-    public BetterSet<Object> getObjects() {
-        return new BetterHashSet<>(objects);
-    }
+    private final ContactSet contacts = new ContactSet();
+    @Nonnull
+    private BetterList<Event> collisions = new BetterArrayList<>();
+    @Nonnull
+    private BetterList<Event> outgoing = new BetterArrayList<>();
+    @Nonnull
+    private final ContactHandler contactHandler = new ContactHandler();
+    @Nonnull
+    private final BiConsumer<Object, Object> pairTest = this::testPair;
+    @Nonnull
+    private final BroadPhase broadPhase;
 
     @Override
-    public void addObject(@Nonnull Object object) {
-        objects.add(object);
+    public synchronized void addObject(@Nonnull Object object) {
+        super.addObject(object);
+        broadPhase.add(object);
     }
 
     @Override
-    public void removeObject(@Nonnull Object object) {
-        objects.remove(object);
-    }
+    public synchronized void removeObject(@Nonnull Object object) {
+        final int slot = getPhysicsStore().slotOf(object);
 
-    @Override
-    public double getGravity() {
-        return gravity;
-    }
+        // Contacts are purged while the slot still resolves to the object
+        if (slot >= 0) contacts.remove(slot, contactHandler);
 
-    @Positive
-    @Override
-    public double getAirDensity() {
-        return airDensity;
+        super.removeObject(object);
+        broadPhase.remove(object);
     }
 
-    @Override
-    public void setGravity(double gravity) {
-        this.gravity = gravity;
-    }
+    /**
+     * Translates contacts between physics store slots into contacts between objects.
+     */
+    private final class ContactHandler implements ContactSet.Handler {
+        @Override
+        public void onBegin(int a, int b) {
+            onContactBegin(object(a), object(b));
+        }
 
-    @Override
-    public void setAirDensity(@Positive double density) {
-        this.airDensity = density;
+        @Override
+        public void onPersist(int a, int b) {
+            onContactPersist(object(a), object(b));
+        }
+
+        @Override
+        public void onEnd(int a, int b) {
+            onContactEnd(object(a), object(b));
+        }
+
+        @Nonnull
+        @SuppressWarnings("ConstantConditions")
+        private Object object(int slot) {
+            return getPhysicsStore().getObject(slot);
+        }
     }
 }
@@ -5,9 +5,11 @@ import oasis.vortex.tickable.Tickable;
 import oasis.vortex.util.collection.set.BetterSet;
 import oasis.vortex.util.meta.Unique;
 import oasis.vortex.util.string.BetterString;
+import oasis.vortex.world.physics.PhysicsStore;
 
 import javax.annotation.Nonnull;
 import javax.validation.constraints.Positive;
+import java.util.function.Consumer;
 
 /**
  * <h2>World</h2>
@@ -39,13 +41,24 @@ public interface World extends Unique, Tickable {
     //
 
     /**
-     * Gets a set of objects in this world.
+     * Gets an immutable snapshot of the objects in this world.
+     * Snapshots are cached, and are only rebuilt after an object has been added or removed.
      *
      * @return {@link BetterSet} of objects
      */
     @Nonnull
     BetterSet<Object> getObjects();
 
+    /**
+     * Calls the given action for each object in this world without creating a snapshot.
+     * Objects must not be added or removed from within the action.
+     *
+     * @param action Action to call for each object
+     */
+    default void forEachObject(@Nonnull Consumer<? super Object> action) {
+        getObjects().forEach(action);
+    }
+
     /**
      * Adds an object to this world.
      *
@@ -60,6 +73,29 @@ public interface World extends Unique, Tickable {
      */
     void removeObject(@Nonnull Object object);
 
+    /**
+     * Registers an observer which is notified when objects are added to or removed from this world.
+     *
+     * @param observer Observer to register
+     */
+    void addObserver(@Nonnull WorldObserver observer);
+
+    /**
+     * Unregisters an observer from this world.
+     *
+     * @param observer Observer to unregister
+     */
+    void removeObserver(@Nonnull WorldObserver observer);
+
+    /**
+     * Gets the physics store holding the positions and velocities of the objects in this world.
+     * Objects are added to and removed from the store along with this world.
+     *
+     * @return {@link PhysicsStore}
+     */
+    @Nonnull
+    PhysicsStore getPhysicsStore();
+
     //
     // Physics
     //
@@ -0,0 +1,30 @@
+package oasis.vortex.world;
+
+import oasis.vortex.object.Object;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <h2>WorldObserver</h2>
+ * <p>
+ * An observer is notified whenever an object is added to or removed from a {@link World}.
+ * Observers are called on the thread which modified the world, and should return quickly.
+ * </p>
+ */
+public interface WorldObserver {
+    /**
+     * Called after an object has been added to a world.
+     *
+     * @param world  World the object was added to
+     * @param object Object which was added
+     */
+    void onObjectAdded(@Nonnull World world, @Nonnull Object object);
+
+    /**
+     * Called after an object has been removed from a world.
+     *
+     * @param world  World the object was removed from
+     * @param object Object which was removed
+     */
+    void onObjectRemoved(@Nonnull World world, @Nonnull Object object);
+}
@@ -0,0 +1,61 @@
+package oasis.vortex.world.broadphase;
+
+import oasis.vortex.object.Object;
+import oasis.vortex.world.World;
+
+import javax.annotation.Nonnull;
+import java.util.function.BiConsumer;
+
+/**
+ * <h2>BroadPhase</h2>
+ * <p>
+ * A broad phase is a spatial index used to cull pairs of {@link Object}s
+ * which cannot possibly overlap before the exact overlap test is performed.
+ * </p>
+ * <p>
+ * Broad phases are conservative. Every pair of objects whose TriLocations overlap
+ * is guaranteed to be reported as a candidate, but candidates are not guaranteed to overlap.
+ * </p>
+ * <p>
+ * Broad phases are owned by a {@link World}, and are kept in sync by the world
+ * when objects are added, removed or moved.
+ * </p>
+ */
+public interface BroadPhase {
+    /**
+     * Adds an object to this broad phase.
+     * If the object has already been added, this behaves like {@link BroadPhase#update(Object)}.
+     *
+     * @param object Object to add
+     */
+    void add(@Nonnull Object object);
+
+    /**
+     * Removes an object from this broad phase.
+     * This does nothing if the object has not been added.
+     *
+     * @param object Object to remove
+     */
+    void remove(@Nonnull Object object);
+
+    /**
+     * Refreshes the bounds of an object after its location or volume has changed.
+     * This does nothing if the object has not been added.
+     *
+     * @param object Object to update
+     */
+    void update(@Nonnull Object object);
+
+    /**
+     * Removes every object from this broad phase.
+     */
+    void clear();
+
+    /**
+     * Calls the given action once for every unordered pair of objects which might overlap.
+     * The order of the two objects within a pair is unspecified.
+     *
+     * @param action Action to call for each candidate pair
+     */
+    void forEachCandidatePair(@Nonnull BiConsumer<Object, Object> action);
+}
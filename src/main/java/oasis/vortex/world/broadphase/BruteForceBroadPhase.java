@@ -0,0 +1,54 @@
+package oasis.vortex.world.broadphase;
+
+import oasis.vortex.object.Object;
+import oasis.vortex.util.collection.list.BetterArrayList;
+import oasis.vortex.util.collection.list.BetterList;
+
+import javax.annotation.Nonnull;
+import java.util.function.BiConsumer;
+
+/**
+ * <h2>BruteForceBroadPhase</h2>
+ * <p>
+ * A broad phase which reports every pair of objects as a candidate.
+ * This is only viable for worlds with very few objects, and is mainly used as a reference.
+ * </p>
+ */
+public final class BruteForceBroadPhase implements BroadPhase {
+    /**
+     * Creates an empty broad phase.
+     */
+    public BruteForceBroadPhase() {
+        this.objects = new BetterArrayList<>();
+    }
+
+    @Nonnull
+    private final BetterList<Object> objects;
+
+    @Override
+    public void add(@Nonnull Object object) {
+        if (!objects.contains(object)) objects.add(object);
+    }
+
+    @Override
+    public void remove(@Nonnull Object object) {
+        objects.remove(object);
+    }
+
+    @Override
+    public void update(@Nonnull Object object) {}
+
+    @Override
+    public void clear() {
+        objects.clear();
+    }
+
+    @Override
+    public void forEachCandidatePair(@Nonnull BiConsumer<Object, Object> action) {
+        for (int i = 0; i < objects.size(); i++) {
+            for (int j = i + 1; j < objects.size(); j++) {
+                action.accept(objects.get(i), objects.get(j));
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package oasis.vortex.world.broadphase;
+
+import oasis.vortex.object.Object;
+import oasis.vortex.util.collection.list.BetterArrayList;
+import oasis.vortex.util.collection.list.BetterList;
+import oasis.vortex.util.physics.BoundingBox;
+
+import javax.annotation.Nonnull;
+import javax.validation.constraints.Positive;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * <h2>UniformGridBroadPhase</h2>
+ * <p>
+ * A broad phase which hashes objects into a uniform grid of cubic cells.
+ * Two objects are reported as a candidate pair only if they share at least one cell.
+ * Each pair is reported exactly once, from the first cell both objects share.
+ * </p>
+ * <p>
+ * Objects which span more than the configured number of cells (such as the ground)
+ * are not hashed, and are instead paired with every other object.
+ * </p>
+ */
+public final class UniformGridBroadPhase implements BroadPhase {
+    /**
+     * The default edge length of a cell, denoted in meters.
+     */
+    public static final double DEFAULT_CELL_SIZE = 4;
+
+    /**
+     * The default maximum number of cells a single object can occupy before it is considered oversized.
+     */
+    public static final int DEFAULT_MAX_CELLS_PER_OBJECT = 64;
+
+    /**
+     * Creates a new grid with default settings.
+     */
+    public UniformGridBroadPhase() {
+        this(DEFAULT_CELL_SIZE, DEFAULT_MAX_CELLS_PER_OBJECT);
+    }
+
+    /**
+     * Creates a new grid.
+     *
+     * @param cellSize          Edge length of a cell in meters
+     * @param maxCellsPerObject Maximum number of cells an object can occupy before it is considered oversized
+     * @throws IllegalArgumentException When either of the parameters is not positive
+     */
+    public UniformGridBroadPhase(@Positive double cellSize, @Positive int maxCellsPerObject) throws IllegalArgumentException {
+        if (!(cellSize > 0) || maxCellsPerObject <= 0) throw new IllegalArgumentException();
+
+        this.cellSize = cellSize;
+        this.maxCellsPerObject = maxCellsPerObject;
+        this.entries = new HashMap<>();
+        this.cells = new HashMap<>();
+        this.oversized = new BetterArrayList<>();
+        this.scratch = new Bounds();
+    }
+
+    @Positive
+    private final double cellSize;
+    @Positive
+    private final int maxCellsPerObject;
+    @Nonnull
+    private final Map<Object, Entry> entries;
+    @Nonnull
+    private final Map<Long, Cell> cells;
+    @Nonnull
+    private final BetterList<Entry> oversized;
+    @Nonnull
+    private final Bounds scratch;
+
+    @Override
+    public void add(@Nonnull Object object) {
+        if (entries.containsKey(object)) {
+            update(object);
+            return;
+        }
+
+        final Entry entry = new Entry(object);
+        computeBounds(object, entry);
+        link(entry);
+        entries.put(object, entry);
+    }
+
+    @Override
+    public void remove(@Nonnull Object object) {
+        final Entry entry = entries.remove(object);
+        if (entry != null) unlink(entry);
+    }
+
+    @Override
+    public void update(@Nonnull Object object) {
+        final Entry entry = entries.get(object);
+        if (entry == null) return;
+
+        computeBounds(object, scratch);
+        if (scratch.sameCells(entry)) return;
+
+        unlink(entry);
+        entry.copy(scratch);
+        link(entry);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        cells.clear();
+        oversized.clear();
+    }
+
+    @Override
+    public void forEachCandidatePair(@Nonnull BiConsumer<Object, Object> action) {
+        for (Map.Entry<Long, Cell> e : cells.entrySet()) {
+            final long key = e.getKey();
+            final BetterList<Entry> occupants = e.getValue().occupants;
+
+            for (int i = 0; i < occupants.size(); i++) {
+                final Entry a = occupants.get(i);
+
+                for (int j = i + 1; j < occupants.size(); j++) {
+                    final Entry b = occupants.get(j);
+
+                    // Only report the pair from the first cell both entries share
+                    final long first = key(
+                            Math.max(a.minX, b.minX),
+                            Math.max(a.minY, b.minY),
+                            Math.max(a.minZ, b.minZ)
+                    );
+
+                    if (first == key) action.accept(a.object, b.object);
+                }
+            }
+        }
+
+        for (int i = 0; i < oversized.size(); i++) {
+            final Entry a = oversized.get(i);
+
+            for (int j = i + 1; j < oversized.size(); j++) action.accept(a.object, oversized.get(j).object);
+
+            for (Entry b : entries.values()) {
+                if (!b.oversized) action.accept(a.object, b.object);
+            }
+        }
+    }
+
+    //
+    // Internal
+    //
+
+    private void computeBounds(@Nonnull Object object, @Nonnull Bounds bounds) {
+        final BoundingBox box = object.getBoundingBox();
+
+        final double minX = Math.floor(box.getMinX() / cellSize);
+        final double minY = Math.floor(box.getMinY() / cellSize);
+        final double minZ = Math.floor(box.getMinZ() / cellSize);
+        final double maxX = Math.floor(box.getMaxX() / cellSize);
+        final double maxY = Math.floor(box.getMaxY() / cellSize);
+        final double maxZ = Math.floor(box.getMaxZ() / cellSize);
+
+        // Computed in double precision, as huge objects would overflow an integer
+        final double count = (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+
+        if (!(count <= maxCellsPerObject)) {
+            bounds.oversized = true;
+            return;
+        }
+
+        bounds.oversized = false;
+        bounds.minX = clamp(minX);
+        bounds.minY = clamp(minY);
+        bounds.minZ = clamp(minZ);
+        bounds.maxX = clamp(maxX);
+        bounds.maxY = clamp(maxY);
+        bounds.maxZ = clamp(maxZ);
+    }
+
+    /**
+     * Clamps a cell coordinate to the range of a key.
+     * Objects beyond the range share the cells at its edge, which only results in additional candidates,
+     * and cell loops never run up to {@link Integer#MAX_VALUE}, where they would overflow.
+     */
+    private static int clamp(double cell) {
+        return (int) Math.max(MIN_CELL, Math.min(MAX_CELL, cell));
+    }
+
+    private void link(@Nonnull Entry entry) {
+        if (entry.oversized) {
+            oversized.add(entry);
+            return;
+        }
+
+        for (int x = entry.minX; x <= entry.maxX; x++) {
+            for (int y = entry.minY; y <= entry.maxY; y++) {
+                for (int z = entry.minZ; z <= entry.maxZ; z++) {
+                    cells.computeIfAbsent(key(x, y, z), k -> new Cell()).occupants.add(entry);
+                }
+            }
+        }
+    }
+
+    private void unlink(@Nonnull Entry entry) {
+        if (entry.oversized) {
+            oversized.remove(entry);
+            return;
+        }
+
+        for (int x = entry.minX; x <= entry.maxX; x++) {
+            for (int y = entry.minY; y <= entry.maxY; y++) {
+                for (int z = entry.minZ; z <= entry.maxZ; z++) {
+                    final long key = key(x, y, z);
+                    final Cell cell = cells.get(key);
+                    if (cell == null) continue;
+
+                    cell.occupants.remove(entry);
+                    if (cell.occupants.isEmpty()) cells.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs three cell coordinates into one key, using 21 bits per axis.
+     * Coordinates are clamped to the 21-bit range, so keys never collide.
+     */
+    private static long key(int x, int y, int z) {
+        return ((long) (x & 0x1FFFFF) << 42) | ((long) (y & 0x1FFFFF) << 21) | (long) (z & 0x1FFFFF);
+    }
+
+    private static final int MIN_CELL = -(1 << 20);
+    private static final int MAX_CELL = (1 << 20) - 1;
+
+    private static final class Cell {
+        @Nonnull
+        private final BetterList<Entry> occupants = new BetterArrayList<>();
+    }
+
+    private static class Bounds {
+        boolean oversized;
+        int minX, minY, minZ;
+        int maxX, maxY, maxZ;
+
+        boolean sameCells(@Nonnull Bounds other) {
+            if (oversized || other.oversized) return oversized == other.oversized;
+
+            return minX == other.minX && minY == other.minY && minZ == other.minZ &&
+                    maxX == other.maxX && maxY == other.maxY && maxZ == other.maxZ;
+        }
+
+        void copy(@Nonnull Bounds other) {
+            this.oversized = other.oversized;
+            this.minX = other.minX;
+            this.minY = other.minY;
+            this.minZ = other.minZ;
+            this.maxX = other.maxX;
+            this.maxY = other.maxY;
+            this.maxZ = other.maxZ;
+        }
+    }
+
+    private static final class Entry extends Bounds {
+        private Entry(@Nonnull Object object) {
+            this.object = object;
+        }
+
+        @Nonnull
+        private final Object object;
+    }
+}
@@ -0,0 +1,312 @@
+package oasis.vortex.world.physics;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.validation.constraints.Positive;
+import java.util.Arrays;
+
+/**
+ * <h2>ContactSet</h2>
+ * <p>
+ * Tracks which pairs of bodies are in contact across ticks, and reports when contacts begin, persist and end.
+ * Bodies are identified by non-negative integer ids, such as {@link PhysicsStore} slots.
+ * Each unordered pair is stored as a single {@code long} key in an open-addressing hash table,
+ * so tracking contacts does not allocate once the table has grown to its working size.
+ * </p>
+ * <p>
+ * Contacts are updated in passes. A pass is started with {@link ContactSet#beginPass()},
+ * every pair currently in contact is reported with {@link ContactSet#touch(int, int, Handler)},
+ * and {@link ContactSet#endPass(Handler)} ends every contact which was not reported during the pass.
+ * </p>
+ * <p>
+ * Contact sets are not thread-safe.
+ * </p>
+ */
+public final class ContactSet {
+    /**
+     * The default initial capacity of the hash table.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final long EMPTY = -1;
+
+    /**
+     * Creates an empty contact set.
+     */
+    public ContactSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty contact set.
+     *
+     * @param initialCapacity Initial capacity of the hash table
+     * @throws IllegalArgumentException When the capacity is not positive
+     */
+    public ContactSet(@Positive int initialCapacity) throws IllegalArgumentException {
+        if (initialCapacity <= 0) throw new IllegalArgumentException();
+
+        final int capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) * 2 - 1);
+
+        this.keys = new long[capacity];
+        this.stamps = new int[capacity];
+        this.ended = new long[DEFAULT_CAPACITY];
+        this.size = 0;
+        this.stamp = 0;
+
+        Arrays.fill(keys, EMPTY);
+    }
+
+    @Nonnull
+    private long[] keys;
+    @Nonnull
+    private int[] stamps;
+    @Nonnull
+    private long[] ended;
+    private int size;
+    private int stamp;
+
+    //
+    // Passes
+    //
+
+    /**
+     * Starts a new pass.
+     */
+    public void beginPass() {
+        stamp++;
+    }
+
+    /**
+     * Reports that two bodies are in contact during the current pass.
+     * The handler is notified of a new contact, or of a contact which persisted from the previous pass.
+     * Reporting the same pair more than once in a pass only notifies the handler once.
+     *
+     * @param a       Id of the first body
+     * @param b       Id of the second body
+     * @param handler Handler to notify
+     */
+    public void touch(@Nonnegative int a, @Nonnegative int b, @Nonnull Handler handler) {
+        final long key = key(a, b);
+        int index = indexOf(key);
+
+        if (keys[index] == key) {
+            if (stamps[index] == stamp) return;
+
+            stamps[index] = stamp;
+            handler.onPersist(first(key), second(key));
+            return;
+        }
+
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+            index = indexOf(key);
+        }
+
+        keys[index] = key;
+        stamps[index] = stamp;
+        size++;
+
+        handler.onBegin(first(key), second(key));
+    }
+
+    /**
+     * Ends the current pass. Every contact which was not reported during the pass is removed,
+     * and the handler is notified that it has ended.
+     *
+     * @param handler Handler to notify
+     */
+    public void endPass(@Nonnull Handler handler) {
+        int count = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == EMPTY || stamps[i] == stamp) continue;
+
+            if (count == ended.length) ended = Arrays.copyOf(ended, count * 2);
+            ended[count++] = keys[i];
+        }
+
+        // Removal shifts entries, so stale keys are collected first
+        for (int i = 0; i < count; i++) {
+            final long key = ended[i];
+
+            removeAt(indexOf(key));
+            handler.onEnd(first(key), second(key));
+        }
+    }
+
+    //
+    // Queries
+    //
+
+    /**
+     * Checks if two bodies are in contact.
+     *
+     * @param a Id of the first body
+     * @param b Id of the second body
+     * @return {@code true} if the pair is in contact
+     */
+    public boolean contains(@Nonnegative int a, @Nonnegative int b) {
+        final long key = key(a, b);
+        return keys[indexOf(key)] == key;
+    }
+
+    /**
+     * Gets the number of pairs in contact.
+     *
+     * @return Number of pairs
+     */
+    @Nonnegative
+    public int size() {
+        return size;
+    }
+
+    //
+    // Removal
+    //
+
+    /**
+     * Removes every contact involving given body, and notifies the handler that they have ended.
+     * This should be called before the id of the body is reused.
+     *
+     * @param id      Id of the body
+     * @param handler Handler to notify
+     */
+    public void remove(@Nonnegative int id, @Nonnull Handler handler) {
+        if (size == 0) return;
+
+        int count = 0;
+
+        for (long key : keys) {
+            if (key == EMPTY || (first(key) != id && second(key) != id)) continue;
+
+            if (count == ended.length) ended = Arrays.copyOf(ended, count * 2);
+            ended[count++] = key;
+        }
+
+        for (int i = 0; i < count; i++) {
+            final long key = ended[i];
+
+            removeAt(indexOf(key));
+            handler.onEnd(first(key), second(key));
+        }
+    }
+
+    /**
+     * Removes every contact without notifying any handler.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    //
+    // Internal
+    //
+
+    /**
+     * Gets the index of given key, or the empty index it would be inserted at.
+     */
+    private int indexOf(long key) {
+        final int mask = keys.length - 1;
+        int index = hash(key) & mask;
+
+        while (keys[index] != EMPTY && keys[index] != key) index = (index + 1) & mask;
+
+        return index;
+    }
+
+    /**
+     * Removes the entry at given index, shifting back the entries which probed past it.
+     */
+    private void removeAt(int index) {
+        final int mask = keys.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+
+        while (keys[next] != EMPTY) {
+            final int home = hash(keys[next]) & mask;
+
+            // Move the entry into the gap if its home slot does not lie between the gap and its position
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                stamps[gap] = stamps[next];
+                gap = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        keys[gap] = EMPTY;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        final long[] oldKeys = keys;
+        final int[] oldStamps = stamps;
+
+        keys = new long[capacity];
+        stamps = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+
+            final int index = indexOf(oldKeys[i]);
+            keys[index] = oldKeys[i];
+            stamps[index] = oldStamps[i];
+        }
+    }
+
+    /**
+     * Packs an unordered pair into a key, with the smaller id in the upper half.
+     */
+    private static long key(int a, int b) {
+        final int min = Math.min(a, b);
+        final int max = Math.max(a, b);
+        return ((long) min << 32) | (max & 0xFFFFFFFFL);
+    }
+
+    private static int first(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int second(long key) {
+        return (int) key;
+    }
+
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * <h2>Handler</h2>
+     * <p>Receives contact transitions from a {@link ContactSet}. Ids are passed with the smaller id first.</p>
+     */
+    public interface Handler {
+        /**
+         * Called when two bodies come into contact.
+         *
+         * @param a Id of the first body
+         * @param b Id of the second body
+         */
+        void onBegin(@Nonnegative int a, @Nonnegative int b);
+
+        /**
+         * Called when two bodies which were in contact during the previous pass are still in contact.
+         *
+         * @param a Id of the first body
+         * @param b Id of the second body
+         */
+        default void onPersist(@Nonnegative int a, @Nonnegative int b) {}
+
+        /**
+         * Called when two bodies are no longer in contact.
+         *
+         * @param a Id of the first body
+         * @param b Id of the second body
+         */
+        default void onEnd(@Nonnegative int a, @Nonnegative int b) {}
+    }
+}
@@ -0,0 +1,392 @@
+package oasis.vortex.world.physics;
+
+import oasis.vortex.object.ImmovableObject;
+import oasis.vortex.object.Object;
+import oasis.vortex.util.physics.Location;
+import oasis.vortex.util.physics.Vector;
+import oasis.vortex.world.World;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.validation.constraints.Positive;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <h2>PhysicsStore</h2>
+ * <p>
+ * A structure-of-arrays store of the positions and velocities of every object in a {@link World}.
+ * Each object occupies a slot, which stays the same until the object is removed.
+ * Physics steps loop over the primitive arrays, and do not allocate.
+ * </p>
+ * <p>
+ * Objects which support {@link Object#attach(PhysicsStore, int)} read their location and vector
+ * from this store, and only materialize a {@link Location} or {@link Vector} when it is requested.
+ * Objects which do not support attachment are copied into this store by {@link PhysicsStore#pull()},
+ * and written back by {@link PhysicsStore#push()}.
+ * </p>
+ * <p>
+ * This store is not thread-safe. Positions are written one component at a time,
+ * so the store, and every object attached to it, must only be accessed while holding the monitor of its world.
+ * </p>
+ */
+public final class PhysicsStore {
+    /**
+     * The default initial number of slots.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Creates an empty store with default capacity.
+     */
+    public PhysicsStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param initialCapacity Initial number of slots
+     * @throws IllegalArgumentException When the capacity is not positive
+     */
+    public PhysicsStore(@Positive int initialCapacity) throws IllegalArgumentException {
+        if (initialCapacity <= 0) throw new IllegalArgumentException();
+
+        this.slots = new HashMap<>();
+        this.objects = new Object[initialCapacity];
+        this.attached = new boolean[initialCapacity];
+        this.x = new double[initialCapacity];
+        this.y = new double[initialCapacity];
+        this.z = new double[initialCapacity];
+        this.vx = new double[initialCapacity];
+        this.vy = new double[initialCapacity];
+        this.vz = new double[initialCapacity];
+        this.freeSlots = new int[initialCapacity];
+        this.freeCount = 0;
+        this.slotCount = 0;
+    }
+
+    //
+    // Membership
+    //
+
+    /**
+     * Adds an object to this store, and attaches it if it supports attachment.
+     * If the object has already been added, its existing slot is returned.
+     *
+     * @param object Object to add
+     * @return Slot of the object
+     */
+    @Nonnegative
+    public int add(@Nonnull Object object) {
+        final Integer existing = slots.get(object);
+        if (existing != null) return existing;
+
+        final int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == objects.length) grow();
+            slot = slotCount++;
+        }
+
+        objects[slot] = object;
+        slots.put(object, slot);
+
+        load(slot, object);
+        attached[slot] = object.attach(this, slot);
+
+        if (object instanceof ImmovableObject) {
+            if (immovableCount == immovableSlots.length) immovableSlots = Arrays.copyOf(immovableSlots, immovableCount * 2);
+            immovableSlots[immovableCount++] = slot;
+        }
+
+        return slot;
+    }
+
+    /**
+     * Removes an object from this store, and detaches it.
+     * This does nothing if the object has not been added.
+     *
+     * @param object Object to remove
+     */
+    public void remove(@Nonnull Object object) {
+        final Integer slot = slots.remove(object);
+        if (slot == null) return;
+
+        if (attached[slot]) object.detach(this);
+        if (object instanceof ImmovableObject) removeImmovable(slot);
+
+        objects[slot] = null;
+        attached[slot] = false;
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Gets the slot of given object.
+     *
+     * @param object Object to query
+     * @return Slot of the object, {@code -1} if the object has not been added
+     */
+    public int slotOf(@Nonnull Object object) {
+        final Integer slot = slots.get(object);
+        return slot != null ? slot : -1;
+    }
+
+    /**
+     * Gets the object occupying given slot.
+     *
+     * @param slot Slot to query
+     * @return Object, {@code null} if the slot is free
+     */
+    @Nullable
+    public Object getObject(@Nonnegative int slot) {
+        return objects[slot];
+    }
+
+    /**
+     * Gets the number of slots in use, including free slots between occupied ones.
+     * Loops over this store should iterate up to this value and skip free slots.
+     *
+     * @return Number of slots
+     */
+    @Nonnegative
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * Gets the number of {@link ImmovableObject}s in this store.
+     *
+     * @return Number of immovable objects
+     */
+    @Nonnegative
+    public int getImmovableCount() {
+        return immovableCount;
+    }
+
+    /**
+     * Gets the slot of an {@link ImmovableObject} in this store.
+     * Immovable slots are tracked as objects are added and removed, so physics steps can test against them
+     * without filtering every object.
+     *
+     * @param index Index between {@code 0} and {@link PhysicsStore#getImmovableCount()}
+     * @return Slot of the immovable object
+     */
+    @Nonnegative
+    public int getImmovableSlot(@Nonnegative int index) {
+        return immovableSlots[index];
+    }
+
+    /**
+     * Gets the number of objects in this store.
+     *
+     * @return Number of objects
+     */
+    @Nonnegative
+    public int size() {
+        return slots.size();
+    }
+
+    //
+    // Synchronization
+    //
+
+    /**
+     * Copies the location and vector of every unattached object into this store.
+     * Call this before a physics step.
+     */
+    public void pull() {
+        for (int i = 0; i < slotCount; i++) {
+            final Object object = objects[i];
+            if (object != null && !attached[i]) load(i, object);
+        }
+    }
+
+    /**
+     * Writes the position and velocity of every unattached object back into the object.
+     * Objects whose values did not change are skipped. Call this after a physics step.
+     */
+    public void push() {
+        for (int i = 0; i < slotCount; i++) {
+            final Object object = objects[i];
+            if (object == null || attached[i]) continue;
+
+            final Location location = object.getLocation();
+            if (location.x() != x[i] || location.y() != y[i] || location.z() != z[i]) {
+                object.setLocation(location.toBuilder().xyz(x[i], y[i], z[i]).build());
+            }
+
+            final Vector vector = object.getVector();
+            if (vector.x() != vx[i] || vector.y() != vy[i] || vector.z() != vz[i]) {
+                object.setVector(new Vector(vx[i], vy[i], vz[i]));
+            }
+        }
+    }
+
+    //
+    // Physics
+    //
+
+    /**
+     * Moves every object by its velocity over the given amount of time.
+     *
+     * @param seconds Elapsed time in seconds
+     */
+    public void integrate(double seconds) {
+        pull();
+
+        for (int i = 0; i < slotCount; i++) {
+            x[i] += vx[i] * seconds;
+            y[i] += vy[i] * seconds;
+            z[i] += vz[i] * seconds;
+        }
+
+        push();
+    }
+
+    //
+    // Slot access
+    //
+
+    public double getX(@Nonnegative int slot) {
+        return x[slot];
+    }
+
+    public double getY(@Nonnegative int slot) {
+        return y[slot];
+    }
+
+    public double getZ(@Nonnegative int slot) {
+        return z[slot];
+    }
+
+    public double getVelocityX(@Nonnegative int slot) {
+        return vx[slot];
+    }
+
+    public double getVelocityY(@Nonnegative int slot) {
+        return vy[slot];
+    }
+
+    public double getVelocityZ(@Nonnegative int slot) {
+        return vz[slot];
+    }
+
+    /**
+     * Sets the position of given slot.
+     *
+     * @param slot Slot to modify
+     * @param x    X coordinate
+     * @param y    Y coordinate
+     * @param z    Z coordinate
+     */
+    public void setPosition(@Nonnegative int slot, double x, double y, double z) {
+        this.x[slot] = x;
+        this.y[slot] = y;
+        this.z[slot] = z;
+    }
+
+    /**
+     * Sets the velocity of given slot.
+     *
+     * @param slot Slot to modify
+     * @param x    Velocity of the X coordinate
+     * @param y    Velocity of the Y coordinate
+     * @param z    Velocity of the Z coordinate
+     */
+    public void setVelocity(@Nonnegative int slot, double x, double y, double z) {
+        this.vx[slot] = x;
+        this.vy[slot] = y;
+        this.vz[slot] = z;
+    }
+
+    //
+    // Views
+    //
+
+    /**
+     * Gets the location of given slot as a record.
+     * The cached location is returned as-is if its position matches this store,
+     * so a new location is only created after the slot has moved.
+     *
+     * @param slot   Slot to query
+     * @param cached Last location materialized for this slot
+     * @return Up-to-date location
+     */
+    @Nonnull
+    public Location readLocation(@Nonnegative int slot, @Nonnull Location cached) {
+        if (cached.x() == x[slot] && cached.y() == y[slot] && cached.z() == z[slot]) return cached;
+        return cached.toBuilder().xyz(x[slot], y[slot], z[slot]).build();
+    }
+
+    /**
+     * Gets the vector of given slot as a record.
+     * The cached vector is returned as-is if it matches this store,
+     * so a new vector is only created after the velocity of the slot has changed.
+     *
+     * @param slot   Slot to query
+     * @param cached Last vector materialized for this slot
+     * @return Up-to-date vector
+     */
+    @Nonnull
+    public Vector readVector(@Nonnegative int slot, @Nonnull Vector cached) {
+        if (cached.x() == vx[slot] && cached.y() == vy[slot] && cached.z() == vz[slot]) return cached;
+        return new Vector(vx[slot], vy[slot], vz[slot]);
+    }
+
+    //
+    // Internal
+    //
+
+    private void load(int slot, @Nonnull Object object) {
+        final Location location = object.getLocation();
+        final Vector vector = object.getVector();
+
+        setPosition(slot, location.x(), location.y(), location.z());
+        setVelocity(slot, vector.x(), vector.y(), vector.z());
+    }
+
+    private void removeImmovable(int slot) {
+        for (int i = 0; i < immovableCount; i++) {
+            if (immovableSlots[i] != slot) continue;
+
+            immovableSlots[i] = immovableSlots[--immovableCount];
+            return;
+        }
+    }
+
+    private void grow() {
+        final int capacity = objects.length * 2;
+
+        objects = Arrays.copyOf(objects, capacity);
+        attached = Arrays.copyOf(attached, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        z = Arrays.copyOf(z, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        vz = Arrays.copyOf(vz, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    @Nonnull
+    private final Map<Object, Integer> slots;
+    @Nonnull
+    private Object[] objects;
+    @Nonnull
+    private boolean[] attached;
+    @Nonnull
+    private double[] x, y, z;
+    @Nonnull
+    private double[] vx, vy, vz;
+    @Nonnull
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+    @Nonnull
+    private int[] immovableSlots = new int[4];
+    private int immovableCount = 0;
+}